@@ -2,6 +2,13 @@ plugins {
     id("java")
     id("org.springframework.boot") version "3.5.3"
     id("io.spring.dependency-management") version "1.1.7"
+    id("org.graalvm.buildtools.native") version "0.10.6" apply false
+}
+
+// ./gradlew bootJar -Paot adds Spring AOT generated code to the jar,
+// start it with -Dspring.aot.enabled=true. Profiles are fixed at build time.
+if (project.hasProperty("aot")) {
+    apply(plugin = "org.graalvm.buildtools.native")
 }
 
 group = "org.example"
@@ -14,8 +21,18 @@ repositories {
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa:3.4.5")
-//    runtimeOnly("com.h2database:h2:2.2.224")
+    runtimeOnly("com.h2database:h2")
     implementation("org.postgresql:postgresql")
+    implementation("org.flywaydb:flyway-core")
+    implementation("org.flywaydb:flyway-database-postgresql")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
+    runtimeOnly("org.postgresql:r2dbc-postgresql")
+    runtimeOnly("io.r2dbc:r2dbc-h2")
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("org.hibernate.orm:hibernate-micrometer")
+    implementation("com.github.ben-manes.caffeine:jcache")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("io.jsonwebtoken:jjwt-api:0.12.6")
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.6")
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.6")
@@ -24,10 +41,72 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok:1.18.36")
     implementation("com.fasterxml.jackson.core:jackson-databind:2.18.3")
     implementation("com.fasterxml.jackson.core:jackson-core:2.18.3")
-    testImplementation(platform("org.junit:junit-bom:5.9.1"))
-    testImplementation("org.junit.jupiter:junit-jupiter")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile:2.18.3")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor:2.18.3")
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Standalone benchmarks, run with ./gradlew benchPayload
+sourceSets {
+    create("bench") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
+}
+
+tasks.register<JavaExec>("benchPayload") {
+    group = "benchmark"
+    description = "Compares JSON, Smile and CBOR payload size and serialization time for expense lists"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("org.example.bench.PayloadBenchmark")
+}
+
+tasks.register<JavaExec>("benchStartup") {
+    group = "benchmark"
+    description = "Measures time from JVM launch to first HTTP response of the boot jar"
+    dependsOn(tasks.bootJar)
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("org.example.bench.StartupBenchmark")
+    args(tasks.bootJar.get().archiveFile.get().asFile.absolutePath)
+    // Extra JVM flags for the measured process, e.g. -PstartupJvmArgs="-XX:SharedArchiveFile=build/cds/application.jsa"
+    if (project.hasProperty("startupJvmArgs")) {
+        args(project.property("startupJvmArgs").toString().split(" "))
+    }
+}
+
+tasks.register<JavaExec>("benchAllocation") {
+    group = "benchmark"
+    description = "Fails when an endpoint allocates more per request than src/bench/resources/allocation-baseline.properties"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("org.example.bench.AllocationBenchmark")
+    args(file("src/bench/resources/allocation-baseline.properties").absolutePath)
+    if (project.hasProperty("updateBaseline")) {
+        args("update")
+    }
+}
+
+// Class data sharing: extract the jar, then record the classes loaded during startup
+val cdsDir = layout.buildDirectory.dir("cds")
+
+tasks.register<Exec>("extractBootJar") {
+    group = "build"
+    description = "Extracts the boot jar into the layout used for CDS training"
+    dependsOn(tasks.bootJar)
+    doFirst { delete(cdsDir) }
+    commandLine("java", "-Djarmode=tools", "-jar", tasks.bootJar.get().archiveFile.get().asFile.absolutePath,
+            "extract", "--destination", cdsDir.get().asFile.absolutePath)
+}
+
+tasks.register<Exec>("cdsArchive") {
+    group = "build"
+    description = "Creates build/cds/application.jsa, run the app with -XX:SharedArchiveFile pointing at it"
+    dependsOn("extractBootJar")
+    workingDir(cdsDir)
+    commandLine("java", "-XX:ArchiveClassesAtExit=application.jsa", "-Dspring.context.exit=onRefresh",
+            "-jar", "${tasks.bootJar.get().archiveFileName.get()}")
+}
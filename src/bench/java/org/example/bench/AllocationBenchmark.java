@@ -0,0 +1,306 @@
+package org.example.bench;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.Main;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Starts the application in-process on H2 and drives every endpoint over HTTP with JFR recording.
+// Bytes allocated per request come from jdk.ThreadAllocationStatistics of the threads serving requests,
+// allocation sites from jdk.ObjectAllocationSample. Every request must succeed, so a failing endpoint
+// cannot pass with a small baseline. Exits with 1 when an endpoint allocates more than its baseline
+// allows or has no baseline, or rewrites the baseline file when started with "update".
+public class AllocationBenchmark {
+    private static final int WARMUP = 100;
+    private static final int REQUESTS = 200;
+    private static final double TOLERANCE = 0.15;
+    private static final int TOP_SITES = 5;
+    // Tomcat workers plus the pools that run request work on their behalf
+    private static final List<String> SERVER_THREAD_PREFIXES = List.of("http-nio-", "dashboard-", "expense-write-buffer");
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private record Endpoint(String name, Supplier<HttpRequest> request) {
+    }
+
+    private record Result(long bytesPerRequest, Map<String, Long> sites, int collections, long pauseMillis) {
+    }
+
+    private static HttpClient client;
+    private static String baseUrl;
+    private static boolean sharded;
+
+    public static void main(String[] args) throws Exception {
+        Path baselineFile = Path.of(args[0]);
+        boolean update = args.length > 1 && "update".equals(args[1]);
+
+        ConfigurableApplicationContext context = SpringApplication.run(Main.class,
+                "--spring.profiles.active=h2",
+                "--server.port=0",
+                "--rate-limit.enabled=false",
+                "--logging.level.root=warn");
+        try {
+            client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            sharded = context.getEnvironment().getProperty("sharding.enabled", Boolean.class, false);
+
+            Map<String, Long> measured = new TreeMap<>();
+            for (Endpoint endpoint : endpoints()) {
+                Result result = measure(endpoint);
+                measured.put(endpoint.name(), result.bytesPerRequest());
+                System.out.printf("%-32s %10d B/req %4d GCs %6d ms pause%n",
+                        endpoint.name(), result.bytesPerRequest(), result.collections(), result.pauseMillis());
+                result.sites().forEach((site, bytes) -> System.out.printf("    %10d B/req  %s%n", bytes / REQUESTS, site));
+            }
+
+            if (update) {
+                writeBaseline(baselineFile, measured);
+                System.out.println("Baseline written to " + baselineFile);
+            } else if (!withinBaseline(readBaseline(baselineFile), measured)) {
+                System.exit(1);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Endpoint> endpoints() throws IOException, InterruptedException {
+        String user = "bench" + System.nanoTime();
+        send(post("/signup", null, "{\"fullName\":\"Bench\",\"username\":\"" + user + "\",\"password\":\"secret\"}"));
+        String token = login(user, "secret");
+        String adminToken = login("admin", "admin123");
+
+        String today = LocalDate.now().toString();
+        String month = today.substring(0, 7);
+        String expense = "{\"expenseType\":0,\"date\":\"" + today +
+                "\",\"amount\":12.5,\"category\":\"Groceries\",\"account\":\"Cash\",\"note\":\"bench\"}";
+        for (int i = 0; i < 50; i++) {
+            send(post("/expenses", token, expense));
+        }
+        long id = createExpense(token, expense);
+
+        // Deletes need a fresh expense per request
+        List<Long> deletable = new ArrayList<>();
+        for (int i = 0; i < WARMUP + REQUESTS; i++) {
+            deletable.add(createExpense(token, expense));
+        }
+        AtomicInteger nextDelete = new AtomicInteger();
+        AtomicInteger nextUser = new AtomicInteger();
+
+        List<Endpoint> endpoints = new ArrayList<>(List.of(
+                new Endpoint("POST /signup", () -> post("/signup", null,
+                        "{\"fullName\":\"Bench\",\"username\":\"" + user + "-" + nextUser.incrementAndGet() +
+                                "\",\"password\":\"secret\"}")),
+                new Endpoint("POST /login", () -> post("/login", null,
+                        "{\"username\":\"" + user + "\",\"password\":\"secret\"}")),
+                new Endpoint("GET /expenses/categories", () -> get("/expenses/categories", token)),
+                new Endpoint("GET /expenses/categories/suggest", () ->
+                        get("/expenses/categories/suggest?prefix=gro&limit=10", token)),
+                new Endpoint("GET /expenses/dashboard", () -> get("/expenses/dashboard", token)),
+                new Endpoint("GET /expenses/day/{date}", () -> get("/expenses/day/" + today, token)),
+                new Endpoint("GET /expenses/category/{c}/month", () ->
+                        get("/expenses/category/Groceries/month?month=" + month, token)),
+                new Endpoint("GET /expenses/changes", () -> get("/expenses/changes?since=0&limit=100", token)),
+                new Endpoint("GET /expenses/{id}", () -> get("/expenses/" + id, token)),
+                new Endpoint("POST /expenses", () -> post("/expenses", token, expense)),
+                new Endpoint("POST /expenses/batch", () -> post("/expenses/batch", token,
+                        "[{\"type\":\"CREATE\",\"expense\":" + expense + "},{\"type\":\"UPDATE\",\"id\":" + id +
+                                ",\"expense\":" + expense + "}]")),
+                new Endpoint("PUT /expenses/{id}", () -> request("/expenses/" + id, token)
+                        .PUT(HttpRequest.BodyPublishers.ofString(expense)).build()),
+                new Endpoint("DELETE /expenses/{id}", () ->
+                        request("/expenses/" + deletable.get(nextDelete.getAndIncrement()), token).DELETE().build()),
+                new Endpoint("GET /admin/users", () -> get("/admin/users", adminToken))));
+        // Shard endpoints only exist when sharding is enabled
+        if (sharded) {
+            endpoints.add(new Endpoint("GET /admin/shards", () -> get("/admin/shards", adminToken)));
+        }
+        return endpoints;
+    }
+
+    private static Result measure(Endpoint endpoint) throws IOException, InterruptedException {
+        for (int i = 0; i < WARMUP; i++) {
+            send(endpoint.request().get());
+        }
+
+        Path file = Files.createTempFile("allocation", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ThreadAllocationStatistics").with("period", "everyChunk");
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "10000/s").withStackTrace();
+            recording.enable("jdk.GarbageCollection");
+            recording.start();
+            for (int i = 0; i < REQUESTS; i++) {
+                send(endpoint.request().get());
+            }
+            recording.stop();
+            recording.dump(file);
+            return analyze(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Result analyze(Path file) throws IOException {
+        Map<String, long[]> allocatedByThread = new HashMap<>();
+        Map<String, Long> sites = new HashMap<>();
+        int collections = 0;
+        long pauseNanos = 0;
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            switch (event.getEventType().getName()) {
+                case "jdk.ThreadAllocationStatistics" -> {
+                    String thread = event.getThread("thread") == null ? null : event.getThread("thread").getJavaName();
+                    if (isServerThread(thread)) {
+                        long allocated = event.getLong("allocated");
+                        allocatedByThread.merge(thread, new long[]{allocated, allocated},
+                                (a, b) -> new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+                    }
+                }
+                case "jdk.ObjectAllocationSample" -> {
+                    if (event.getThread() != null && isServerThread(event.getThread().getJavaName())) {
+                        sites.merge(site(event), event.getLong("weight"), Long::sum);
+                    }
+                }
+                case "jdk.GarbageCollection" -> {
+                    collections++;
+                    pauseNanos += event.getDuration("sumOfPauses").toNanos();
+                }
+                default -> {
+                }
+            }
+        }
+
+        long allocated = allocatedByThread.values().stream().mapToLong(range -> range[1] - range[0]).sum();
+        Map<String, Long> topSites = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_SITES)
+                .forEach(entry -> topSites.put(entry.getKey(), entry.getValue()));
+        return new Result(allocated / REQUESTS, topSites, collections, pauseNanos / 1_000_000);
+    }
+
+    private static boolean isServerThread(String thread) {
+        return thread != null && SERVER_THREAD_PREFIXES.stream().anyMatch(thread::startsWith);
+    }
+
+    // Allocated type plus the innermost application frame, or the innermost frame when there is none
+    private static String site(RecordedEvent event) {
+        String type = event.getClass("objectClass").getName();
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return type;
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame frame = frames.stream()
+                .filter(candidate -> candidate.getMethod().getType().getName().startsWith("org.example."))
+                .findFirst()
+                .orElse(frames.get(0));
+        return type + " at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() +
+                ":" + frame.getLineNumber();
+    }
+
+    private static boolean withinBaseline(Map<String, Long> baseline, Map<String, Long> measured) {
+        boolean passed = true;
+        for (Map.Entry<String, Long> entry : measured.entrySet()) {
+            Long limit = baseline.get(entry.getKey());
+            if (limit == null) {
+                System.out.printf("NO BASELINE %s: %d B/req, record one with -PupdateBaseline%n",
+                        entry.getKey(), entry.getValue());
+                passed = false;
+            } else if (entry.getValue() > limit * (1 + TOLERANCE)) {
+                System.out.printf("REGRESSION %s: %d B/req, baseline %d B/req%n", entry.getKey(), entry.getValue(), limit);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    private static Map<String, Long> readBaseline(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        Map<String, Long> baseline = new HashMap<>();
+        properties.stringPropertyNames().forEach(name -> baseline.put(name, Long.parseLong(properties.getProperty(name))));
+        return baseline;
+    }
+
+    private static void writeBaseline(Path file, Map<String, Long> measured) throws IOException {
+        Properties properties = new Properties();
+        measured.forEach((name, bytes) -> properties.setProperty(name, Long.toString(bytes)));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Bytes allocated per request, ./gradlew benchAllocation -PupdateBaseline to refresh");
+        }
+    }
+
+    private static String login(String username, String password) throws IOException, InterruptedException {
+        String body = send(post("/login", null,
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+        Matcher matcher = TOKEN.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed for " + username + ": " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private static long createExpense(String token, String expense) throws IOException, InterruptedException {
+        Matcher matcher = ID.matcher(send(post("/expenses", token, expense)));
+        if (!matcher.find()) {
+            throw new IllegalStateException("Could not create an expense");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private static HttpRequest post(String path, String token, String json) {
+        return request(path, token).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.method() + " " + request.uri().getPath() + " returned " +
+                    response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
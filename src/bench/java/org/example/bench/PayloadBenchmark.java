@@ -0,0 +1,76 @@
+package org.example.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.dto.ExpenseDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+// Payload size and serialization CPU of an expense list in JSON, Smile and CBOR
+public class PayloadBenchmark {
+    private static final int[] ROW_COUNTS = {1_000, 10_000, 100_000};
+    private static final String[] CATEGORIES = {"Salary", "Groceries", "Utilities", "Transport", "Rent", "Dining"};
+    private static final String[] ACCOUNTS = {"Cash", "Bank account", "Credit card"};
+
+    public static void main(String[] args) throws IOException {
+        Map<String, ObjectMapper> mappers = Map.of(
+                "json", new ObjectMapper(),
+                "smile", new ObjectMapper(new SmileFactory()),
+                "cbor", new ObjectMapper(new CBORFactory()));
+
+        System.out.printf("%-8s %-6s %12s %12s %12s%n", "rows", "format", "bytes", "gzip bytes", "ms/op");
+        for (int rows : ROW_COUNTS) {
+            List<ExpenseDTO> expenses = generate(rows);
+            for (String format : List.of("json", "smile", "cbor")) {
+                ObjectMapper mapper = mappers.get(format);
+                byte[] payload = mapper.writeValueAsBytes(expenses);
+                int iterations = Math.max(5, 2_000_000 / rows);
+
+                // Warm up before timing
+                for (int i = 0; i < iterations; i++) {
+                    mapper.writeValueAsBytes(expenses);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    mapper.writeValueAsBytes(expenses);
+                }
+                double millisPerOp = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+
+                System.out.printf("%-8d %-6s %12d %12d %12.3f%n",
+                        rows, format, payload.length, gzip(payload).length, millisPerOp);
+            }
+        }
+    }
+
+    private static List<ExpenseDTO> generate(int rows) {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        List<ExpenseDTO> expenses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            expenses.add(new ExpenseDTO((long) i + 1,
+                    random.nextInt(2),
+                    start.plusDays(random.nextInt(365)).toString(),
+                    Math.round(random.nextDouble() * 100_000) / 100.0,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    ACCOUNTS[random.nextInt(ACCOUNTS.length)],
+                    "Note " + random.nextInt(1000)));
+        }
+        return expenses;
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+}
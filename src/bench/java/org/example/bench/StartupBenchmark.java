@@ -0,0 +1,65 @@
+package org.example.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Launches the boot jar several times and reports the time until it answers its first HTTP request.
+// Any status counts, the point is that the server is accepting traffic.
+public class StartupBenchmark {
+    private static final int RUNS = 5;
+    private static final int PORT = 18080;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        String jar = args[0];
+        List<String> jvmArgs = Arrays.asList(args).subList(1, args.length);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/actuator/health")).build();
+
+        List<Long> timings = new ArrayList<>();
+        for (int run = 1; run <= RUNS; run++) {
+            List<String> command = new ArrayList<>();
+            command.add("java");
+            command.addAll(jvmArgs);
+            command.addAll(List.of("-jar", jar, "--server.port=" + PORT));
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            try {
+                long millis = waitForFirstResponse(client, request, process, start);
+                timings.add(millis);
+                System.out.printf("run %d: %d ms%n", run, millis);
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+        System.out.printf("min %d ms, median %d ms%n",
+                timings.stream().min(Long::compare).orElse(0L),
+                timings.stream().sorted().toList().get(timings.size() / 2));
+    }
+
+    private static long waitForFirstResponse(HttpClient client, HttpRequest request, Process process, long start)
+            throws InterruptedException {
+        while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue());
+            }
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return (System.nanoTime() - start) / 1_000_000;
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+        throw new IllegalStateException("No response within " + TIMEOUT);
+    }
+}
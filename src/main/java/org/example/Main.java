@@ -1,22 +1,13 @@
 package org.example;
 
-import org.example.model.Expense;
-import org.example.utils.ExpenseDataLoader;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-import java.util.List;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-public class Main implements CommandLineRunner {
+@EnableScheduling
+public class Main {
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
     }
-
-    @Override
-    public void run(String... args) throws Exception {
-        List<Expense> expenseList = ExpenseDataLoader.getExpenses();
-        expenseList.forEach(System.out::println);
-    }
-}
\ No newline at end of file
+}
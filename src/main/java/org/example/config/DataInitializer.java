@@ -1,5 +1,6 @@
 package org.example.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.model.AppUser;
 import org.example.model.Role;
 import org.example.repository.UserRepository;
@@ -7,30 +8,46 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class DataInitializer implements CommandLineRunner {
+    private static final String ADMIN_USERNAME = "admin";
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ShardRouter shardRouter;
 
-    public DataInitializer(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public DataInitializer(UserRepository userRepository, PasswordEncoder passwordEncoder, ShardRouter shardRouter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.shardRouter = shardRouter;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        // Check if admin user already exists
-        if (userRepository.findByUsername("admin").isEmpty()) {
-            // Create admin user
-            AppUser adminUser = new AppUser();
-            adminUser.setFullName("Admin User");
-            adminUser.setUsername("admin");
-            adminUser.setPassword(passwordEncoder.encode("admin123"));
-            adminUser.setRole(Role.ADMIN);
+        // An admin created without a directory entry would otherwise be shadowed by a signup on another shard
+        shardRouter.registerUnassignedUsers();
 
-            userRepository.save(adminUser);
-            System.out.println("Admin user created: username='admin', password='admin123'");
-        }
+        int shard = shardRouter.placementFor(ADMIN_USERNAME);
+        ShardContext.call(shard, () -> {
+            // Check if admin user already exists
+            if (userRepository.findByUsername(ADMIN_USERNAME).isEmpty() && shardRouter.claim(ADMIN_USERNAME, shard)) {
+                // Create admin user
+                AppUser adminUser = new AppUser();
+                adminUser.setFullName("Admin User");
+                adminUser.setUsername(ADMIN_USERNAME);
+                adminUser.setPassword(passwordEncoder.encode("admin123"));
+                adminUser.setRole(Role.ADMIN);
+
+                try {
+                    userRepository.save(adminUser);
+                } catch (RuntimeException e) {
+                    shardRouter.release(ADMIN_USERNAME);
+                    throw e;
+                }
+                log.info("Admin user '{}' created on shard {}", ADMIN_USERNAME, shard);
+            }
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
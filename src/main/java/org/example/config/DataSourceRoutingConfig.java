@@ -0,0 +1,63 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Replaces the single auto-configured pool with primary + replicas when routing is enabled.
+// Sharding replaces the pool as well and takes precedence.
+@Configuration
+@ConditionalOnExpression("${datasource.routing.enabled:false} and !${sharding.enabled:false}")
+public class DataSourceRoutingConfig {
+
+    // A bean of its own so spring.datasource.hikari.* is bound to it, as for the auto-configured pool
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceRoutingProperties routingProperties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            DataSourceRoutingProperties.Replica replica = routingProperties.getReplicas().get(i);
+            if (routingProperties.isMigrateReplicas()) {
+                Flyway.configure()
+                        .dataSource(replica.getUrl(), replica.getUsername(), replica.getPassword())
+                        .load()
+                        .migrate();
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, routingProperties.getStickiness());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.routing")
+public class DataSourceRoutingProperties {
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Reads of a user who wrote within this window go to the primary
+    private Duration stickiness = Duration.ofSeconds(5);
+
+    // Runs the Flyway migrations on replicas too, only for local embedded databases
+    private boolean migrateReplicas = false;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sampledSqlLogging(@Value("${logging.sql.sample-rate:0.01}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledSqlInspector(sampleRate));
+    }
+}
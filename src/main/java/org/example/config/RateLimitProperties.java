@@ -0,0 +1,32 @@
+package org.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // Checked in order, the first group whose path matches applies
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    public static class Group {
+        private String name;
+        private List<String> paths = new ArrayList<>();
+        private int capacity;
+        private double refillPerSecond;
+        private KeyType key = KeyType.USER;
+    }
+
+    public enum KeyType {
+        USER,
+        IP
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to healthy replicas in turn and everything else to the primary.
+// Must sit behind a LazyConnectionDataSourceProxy so the read-only flag is known when routing.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> healthyReplicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final long stickinessNanos;
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration stickiness) {
+        this.replicas = replicas;
+        this.stickinessNanos = stickiness.toNanos();
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        healthyReplicas.addAll(replicas.keySet());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                recordWrite();
+            }
+            return PRIMARY;
+        }
+        // Read your own writes until the replicas have caught up
+        String user = currentUser();
+        if (user != null) {
+            Long lastWrite = lastWrites.get(user);
+            if (lastWrite != null && System.nanoTime() - lastWrite < stickinessNanos) {
+                return PRIMARY;
+            }
+        }
+        List<String> healthy = healthyReplicas;
+        int size = healthy.size();
+        if (size == 0) {
+            return PRIMARY;
+        }
+        try {
+            return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), size));
+        } catch (IndexOutOfBoundsException e) {
+            // A replica was marked down concurrently
+            return PRIMARY;
+        }
+    }
+
+    // Routing only sees the user that opened the connection, writes made on behalf of other
+    // users in the same transaction (group commit) record them through this
+    public void recordWrite() {
+        String user = currentUser();
+        if (user != null) {
+            lastWrites.put(user, System.nanoTime());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        replicas.forEach((key, dataSource) -> {
+            boolean up = isUp(dataSource);
+            if (up && !healthyReplicas.contains(key)) {
+                healthyReplicas.add(key);
+                log.info("Replica {} is back in rotation", key);
+            } else if (!up && healthyReplicas.remove(key)) {
+                log.warn("Replica {} removed from rotation", key);
+            }
+        });
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= stickinessNanos);
+    }
+
+    private boolean isUp(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(1);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
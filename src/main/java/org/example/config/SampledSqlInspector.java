@@ -0,0 +1,25 @@
+package org.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Logs a random sample of the SQL Hibernate prepares instead of every statement
+@Slf4j(topic = "sql")
+public class SampledSqlInspector implements StatementInspector {
+
+    private final double sampleRate;
+
+    public SampledSqlInspector(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && log.isInfoEnabled()) {
+            log.info(sql);
+        }
+        return sql;
+    }
+}
@@ -1,32 +1,40 @@
 package org.example.config;
 
+import org.example.security.AccessLogFilter;
 import org.example.security.JwtAuthFilter;
+import org.example.security.RateLimitFilter;
+import org.example.security.RateLimiter;
+import org.example.security.ShardContextFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
+@Profile("!reactive")
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties rateLimitProperties;
+    private final ShardRouter shardRouter;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter,
+                          RateLimiter rateLimiter,
+                          RateLimitProperties rateLimitProperties,
+                          ShardRouter shardRouter) {
         this.jwtAuthFilter = jwtAuthFilter;
-    }
-
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        this.rateLimiter = rateLimiter;
+        this.rateLimitProperties = rateLimitProperties;
+        this.shardRouter = shardRouter;
     }
 
     @Bean
@@ -46,9 +54,16 @@ public class SecurityConfig {
                                 .requestMatchers("/login").permitAll()  // Allow public access to login
                                 .requestMatchers("/h2-console/**").permitAll() // Allow public access to h2-console for now
                                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                                .requestMatchers("/actuator/**").hasRole("ADMIN") // Cache hit ratios and other metrics
                                 .anyRequest().hasRole("USER"))
                 .addFilterBefore(jwtAuthFilter,
-                        UsernamePasswordAuthenticationFilter.class);
+                        UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new AccessLogFilter(), // Wraps authentication and rate limiting to time them too
+                        JwtAuthFilter.class)
+                .addFilterAfter(new RateLimitFilter(rateLimiter, rateLimitProperties), // Needs the user set by JwtAuthFilter
+                        JwtAuthFilter.class)
+                .addFilterAfter(new ShardContextFilter(shardRouter), // Needs the user set by JwtAuthFilter
+                        JwtAuthFilter.class);
         return http.build();
     }
 }
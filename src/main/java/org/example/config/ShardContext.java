@@ -0,0 +1,38 @@
+package org.example.config;
+
+import java.util.function.Supplier;
+
+// Shard used by the current thread, read by ShardRoutingDataSource when a connection is needed
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
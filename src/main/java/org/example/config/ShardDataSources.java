@@ -0,0 +1,8 @@
+package org.example.config;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Raw pool of every shard, index = shard number. Only present when sharding is enabled.
+public record ShardDataSources(List<DataSource> shards) {
+}
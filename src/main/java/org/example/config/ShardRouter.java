@@ -0,0 +1,259 @@
+package org.example.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Knows which shard holds a user. The user_shard directory on shard 0 is the source of truth,
+// new users are placed by a stable hash of their username. With sharding disabled everything is shard 0.
+// Usernames are unique across shards because every new user first claims its name in the directory.
+@Component
+public class ShardRouter {
+    static final long ID_BLOCK_SIZE = 1L << 40;
+    // Users created before sharding was enabled live on shard 0
+    static final String REGISTER_SHARD_0_USERS = "insert into user_shard (username, shard) " +
+            "select lower(u.username), 0 from app_user u " +
+            "where not exists (select 1 from user_shard s where s.username = lower(u.username))";
+
+    private final int shardCount;
+    private final JdbcTemplate directory;
+    private final long cacheTtlNanos;
+    private final ConcurrentHashMap<String, CachedShard> cache = new ConcurrentHashMap<>();
+    private final ExecutorService shardExecutor;
+
+    public ShardRouter(ShardingProperties shardingProperties, ObjectProvider<ShardDataSources> shardDataSources) {
+        ShardDataSources dataSources = shardDataSources.getIfAvailable();
+        this.shardCount = dataSources == null ? 1 : dataSources.shards().size();
+        this.directory = dataSources == null ? null : new JdbcTemplate(dataSources.shards().get(0));
+        this.cacheTtlNanos = shardingProperties.getDirectoryCacheTtl().toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.shardExecutor = dataSources == null ? null : Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public static long idBlockStart(int shard) {
+        return shard * ID_BLOCK_SIZE;
+    }
+
+    // True when the id was generated by the shard of the current thread
+    public boolean inCurrentBlock(long id) {
+        if (!isEnabled()) {
+            return true;
+        }
+        long blockStart = idBlockStart(ShardContext.current());
+        return id >= blockStart && id < blockStart + ID_BLOCK_SIZE;
+    }
+
+    public int shardFor(String username) {
+        if (!isEnabled() || username == null) {
+            return 0;
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        long now = System.nanoTime();
+        CachedShard cached = cache.get(key);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached.shard();
+        }
+        List<Integer> shards = directory.queryForList(
+                "select shard from user_shard where username = ?", Integer.class, key);
+        if (shards.isEmpty()) {
+            // Unknown users are looked up on shard 0, where they are not found either
+            return 0;
+        }
+        cache.put(key, new CachedShard(shards.get(0), now + cacheTtlNanos));
+        return shards.get(0);
+    }
+
+    // Uncached lookup for requests that write, so a node never writes to the shard a user has left
+    public int shardForWrite(String username) {
+        if (!isEnabled() || username == null) {
+            return 0;
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        List<Map<String, Object>> entries = directory.queryForList(
+                "select shard, moving from user_shard where username = ?", key);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        if (Boolean.TRUE.equals(entries.get(0).get("moving"))) {
+            throw new UserMovingException(username);
+        }
+        int shard = ((Number) entries.get(0).get("shard")).intValue();
+        cache.put(key, new CachedShard(shard, System.nanoTime() + cacheTtlNanos));
+        return shard;
+    }
+
+    // Forgets the cached entry, e.g. when the user was not found on the cached shard
+    public void evict(String username) {
+        if (username != null) {
+            cache.remove(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // Shard for a signup: the existing entry if the name is known, otherwise by hash
+    public int placementFor(String username) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        List<Integer> shards = directory.queryForList(
+                "select shard from user_shard where username = ?", Integer.class, key);
+        if (!shards.isEmpty()) {
+            return shards.get(0);
+        }
+        int hash = key.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    // Reserves the name for a new user on the shard, false when it is taken on any shard.
+    // Inside a transaction the claim is released again if that transaction does not commit.
+    public boolean claim(String username, int shard) {
+        if (!isEnabled()) {
+            return true;
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        try {
+            directory.update("insert into user_shard (username, shard) values (?, ?)", key, shard);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(username);
+                    }
+                }
+            });
+        }
+        cache.put(key, new CachedShard(shard, System.nanoTime() + cacheTtlNanos));
+        return true;
+    }
+
+    public void release(String username) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        directory.update("delete from user_shard where username = ?", key);
+        cache.remove(key);
+    }
+
+    public void registerUnassignedUsers() {
+        if (isEnabled()) {
+            directory.update(REGISTER_SHARD_0_USERS);
+        }
+    }
+
+    // Fences the user's writes on every node, false when the user is not on that shard or already moving
+    public boolean beginMove(String username, int sourceShard) {
+        return isEnabled() && directory.update(
+                "update user_shard set moving = true where username = ? and shard = ? and moving = false",
+                username.toLowerCase(Locale.ROOT), sourceShard) == 1;
+    }
+
+    // Points the user at the shard holding their rows and lifts the fence
+    public void finishMove(String username, int shard) {
+        String key = username.toLowerCase(Locale.ROOT);
+        directory.update("update user_shard set shard = ?, moving = false where username = ?", shard, key);
+        cache.put(key, new CachedShard(shard, System.nanoTime() + cacheTtlNanos));
+    }
+
+    public Map<Integer, Long> userCountsByShard() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            counts.put(shard, 0L);
+        }
+        if (isEnabled()) {
+            directory.query("select shard, count(*) from user_shard group by shard",
+                    row -> {
+                        counts.put(row.getInt(1), row.getLong(2));
+                    });
+        }
+        return counts;
+    }
+
+    public List<String> usernamesOnShard(int shard, int limit) {
+        if (!isEnabled()) {
+            return List.of();
+        }
+        return directory.queryForList("select username from user_shard where shard = ? order by username limit ?",
+                String.class, shard, limit);
+    }
+
+    // Scatter-gather: runs the action once per shard in parallel, results are in shard order
+    public <T> List<T> onEachShard(Supplier<T> action) {
+        if (!isEnabled()) {
+            return Collections.singletonList(ShardContext.call(0, action));
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(shardExecutor.submit(() -> ShardContext.call(target, action)));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (shardExecutor != null) {
+            shardExecutor.shutdownNow();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sharding.directory-cache-eviction-interval:PT1M}")
+    public void evictExpiredEntries() {
+        long now = System.nanoTime();
+        cache.values().removeIf(entry -> now >= entry.expiresAt());
+    }
+
+    private record CachedShard(int shard, long expiresAt) {
+    }
+}
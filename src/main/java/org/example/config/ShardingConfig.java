@@ -0,0 +1,91 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Spreads users over several databases. Every shard gets its own id block for the
+// identity columns, so ids stay unique across shards and users can be moved as is.
+@Configuration
+@ConditionalOnProperty(prefix = "sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+    private static final List<String> IDENTITY_TABLES = List.of("app_user", "expense", "expense_change");
+
+    // A bean of its own so spring.datasource.hikari.* is bound to it, as for the auto-configured pool
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource first = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        first.setPoolName("shard-0");
+        return first;
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(HikariDataSource firstShardDataSource,
+                                             ShardingProperties shardingProperties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShardDataSource);
+        for (ShardingProperties.Shard shard : shardingProperties.getShards()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shards.size());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            shards.add(dataSource);
+        }
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            Flyway.configure()
+                    .dataSource(shards.get(shard))
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .load()
+                    .migrate();
+            reserveIdBlock(new JdbcTemplate(shards.get(shard)), shard);
+        }
+
+        new JdbcTemplate(firstShardDataSource).update(ShardRouter.REGISTER_SHARD_0_USERS);
+        return new ShardDataSources(shards);
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(ShardDataSources shardDataSources) {
+        return new ShardRoutingDataSource(shardDataSources.shards());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // Moves the identity sequences into the shard's block until the shard has generated its first id there
+    private void reserveIdBlock(JdbcTemplate jdbcTemplate, int shard) {
+        if (shard == 0) {
+            return;
+        }
+        long blockStart = ShardRouter.idBlockStart(shard);
+        for (String table : IDENTITY_TABLES) {
+            Integer ownRows = jdbcTemplate.queryForObject(
+                    "select count(*) from " + table + " where id > ? and id < ?",
+                    Integer.class, blockStart, blockStart + ShardRouter.ID_BLOCK_SIZE);
+            if (ownRows != null && ownRows == 0) {
+                jdbcTemplate.execute("alter table " + table + " alter column id restart with " + (blockStart + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+
+    // Shard 0 is spring.datasource, these are shards 1..N
+    private List<Shard> shards = new ArrayList<>();
+
+    // How long a node trusts its cached username -> shard entry after a user is moved
+    private Duration directoryCacheTtl = Duration.ofSeconds(30);
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
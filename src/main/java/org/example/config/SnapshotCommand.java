@@ -0,0 +1,54 @@
+package org.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.service.SnapshotService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+// One-shot admin commands, run before DataInitializer so a restore starts from empty tables:
+//   java -jar app.jar --spring.main.web-application-type=none --snapshot.export=prod.snap
+//   java -jar app.jar --spring.main.web-application-type=none --snapshot.import=prod.snap [--snapshot.replace]
+// The application exits once the command is done.
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SnapshotCommand implements ApplicationRunner {
+    private static final String EXPORT = "snapshot.export";
+    private static final String IMPORT = "snapshot.import";
+
+    private final SnapshotService snapshotService;
+    private final ApplicationContext context;
+
+    public SnapshotCommand(SnapshotService snapshotService, ApplicationContext context) {
+        this.snapshotService = snapshotService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(EXPORT) && !args.containsOption(IMPORT)) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            if (args.containsOption(EXPORT)) {
+                snapshotService.export(Path.of(args.getOptionValues(EXPORT).get(0)));
+            } else {
+                snapshotService.restore(Path.of(args.getOptionValues(IMPORT).get(0)),
+                        args.containsOption("snapshot.replace"));
+            }
+        } catch (Exception e) {
+            log.error("Snapshot command failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.config;
+
+// The user is being copied to another shard and cannot be written to right now
+public class UserMovingException extends IllegalStateException {
+    public UserMovingException(String username) {
+        super("User " + username + " is being moved to another shard");
+    }
+
+    public UserMovingException(Long userId) {
+        super("User " + userId + " has been moved to another shard");
+    }
+}
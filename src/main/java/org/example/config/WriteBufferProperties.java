@@ -0,0 +1,25 @@
+package org.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "expense.write-buffer")
+public class WriteBufferProperties {
+    private boolean enabled = false;
+
+    // Pending inserts allowed before callers block
+    private int queueCapacity = 10_000;
+
+    // A flush starts when this many inserts are waiting or the oldest one has waited max-delay
+    private int maxBatchSize = 200;
+    private Duration maxDelay = Duration.ofMillis(5);
+
+    // How long a request waits for the commit of its insert before it fails; a timed out insert
+    // that has not started flushing is dropped
+    private Duration flushTimeout = Duration.ofSeconds(2);
+}
@@ -1,22 +1,32 @@
 package org.example.controller;
 
+import org.example.config.UserMovingException;
 import org.example.model.AppUser;
 import org.example.service.AdminService;
+import org.example.service.ShardService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/admin")
 public class AdminController {
 
     private final AdminService adminService;
+    private final ShardService shardService;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, ShardService shardService) {
         this.adminService = adminService;
+        this.shardService = shardService;
     }
 
     @GetMapping("/users")
@@ -24,4 +34,35 @@ public class AdminController {
         List<AppUser> users = adminService.getAllUsers();
         return ResponseEntity.ok(users);
     }
+
+    @GetMapping("/shards")
+    public ResponseEntity<Map<Integer, Long>> getShardUserCounts() {
+        if (!shardService.isEnabled()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(shardService.getUserCounts());
+    }
+
+    @PostMapping("/shards/move")
+    public ResponseEntity<Void> moveUser(@RequestParam String username, @RequestParam int shard) {
+        if (!shardService.isEnabled()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            boolean isMoved = shardService.moveUser(username, shard);
+            return new ResponseEntity<>(isMoved ? HttpStatus.OK : HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (UserMovingException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<Integer> rebalance(@RequestParam(defaultValue = "100") int maxMoves) {
+        if (!shardService.isEnabled()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(shardService.rebalance(maxMoves));
+    }
 }
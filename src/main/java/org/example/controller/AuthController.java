@@ -1,16 +1,20 @@
 package org.example.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.dto.AppUserDTO;
 import org.example.dto.AuthDTO;
 import org.example.dto.AuthResponseDTO;
 import org.example.model.AppUser;
 import org.example.service.AuthService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+@Slf4j
 @RestController
+@Profile("!reactive")
 public class AuthController {
 
     private final AuthService authService;
@@ -22,7 +26,7 @@ public class AuthController {
     @PostMapping("/signup")
     public ResponseEntity<AuthResponseDTO> signup(@RequestBody AppUserDTO appUserDTO) {
         AuthResponseDTO response = authService.registerUser(appUserDTO);
-        showMessage(response.getToken(), response.getMessage());
+        showMessage(response.getMessage());
 
         if ("Success".equalsIgnoreCase(response.getMessage())) {
             return ResponseEntity.ok(response);
@@ -34,7 +38,7 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponseDTO> login(@RequestBody AuthDTO authDTO) {
         AuthResponseDTO response = authService.loginUser(authDTO);
-        showMessage(response.getToken(), response.getMessage());
+        showMessage(response.getMessage());
 
         if ("Success".equalsIgnoreCase(response.getMessage())) {
             return ResponseEntity.ok(response);
@@ -43,7 +47,8 @@ public class AuthController {
         }
     }
 
-    private void showMessage(String token, String message){
-        System.out.println("Token: " + token + "\nMessage: " + message);
+    // The token itself is never logged
+    private void showMessage(String message){
+        log.debug("Message: {}", message);
     }
 }
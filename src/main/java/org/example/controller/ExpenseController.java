@@ -1,9 +1,17 @@
 package org.example.controller;
 
+import org.example.dto.BatchOperationDTO;
+import org.example.dto.BatchResultDTO;
+import org.example.dto.DashboardDTO;
+import org.example.dto.ExpenseChangesDTO;
+import org.example.dto.ExpenseDTO;
 import org.example.model.AppUser;
 import org.example.model.Expense;
+import org.example.service.DashboardService;
+import org.example.service.ExpenseChangeService;
 import org.example.service.ExpenseService;
 import org.example.service.UserService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -13,14 +21,31 @@ import java.util.List;
 import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 public class ExpenseController {
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_SUGGESTIONS = 50;
 
     private final ExpenseService expenseService;
     private final UserService userService;
+    private final ExpenseChangeService expenseChangeService;
+    private final DashboardService dashboardService;
 
-    public ExpenseController(ExpenseService expenseService, UserService userService) {
+    public ExpenseController(ExpenseService expenseService,
+                             UserService userService,
+                             ExpenseChangeService expenseChangeService,
+                             DashboardService dashboardService) {
         this.expenseService = expenseService;
         this.userService = userService;
+        this.expenseChangeService = expenseChangeService;
+        this.dashboardService = dashboardService;
+    }
+
+    // Home screen in one round trip: categories, today's expenses, this month's totals and recent items
+    @GetMapping("/expenses/dashboard")
+    public ResponseEntity<DashboardDTO> getDashboard(Authentication authentication) {
+        AppUser user = getUserFromAuthentication(authentication);
+        return ResponseEntity.ok(dashboardService.getDashboard(user.getId()));
     }
 
     @GetMapping("/expenses/categories")
@@ -36,25 +61,47 @@ public class ExpenseController {
         return ResponseEntity.ok(categories);
     }
 
+    // Most used categories starting with the prefix, case-insensitive
+    @GetMapping("/expenses/categories/suggest")
+    public ResponseEntity<List<String>> suggestExpenseCategories(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        AppUser user = getUserFromAuthentication(authentication);
+        return ResponseEntity.ok(expenseService.suggestCategories(prefix, limit, user.getId()));
+    }
+
     @GetMapping("/expenses/day/{date}")
-    public ResponseEntity<List<Expense>> getExpenseByDay(@PathVariable String date, Authentication authentication) {
+    public ResponseEntity<List<ExpenseDTO>> getExpenseByDay(@PathVariable String date, Authentication authentication) {
         AppUser user = getUserFromAuthentication(authentication);
-        List<Expense> expenses = expenseService.getExpenseByDay(date, user.getId());
+        List<ExpenseDTO> expenses = expenseService.getExpenseByDay(date, user.getId());
         return ResponseEntity.ok(expenses);
     }
 
     @GetMapping("/expenses/category/{category}/month")
-    public ResponseEntity<List<Expense>> getExpenseByCategoryAndMonth(
+    public ResponseEntity<List<ExpenseDTO>> getExpenseByCategoryAndMonth(
             @PathVariable String category,
             @RequestParam String month,
             Authentication authentication) {
         AppUser user = getUserFromAuthentication(authentication);
-        List<Expense> expenses = expenseService.getExpenseByCategoryAndMonth(category, month, user.getId());
+        List<ExpenseDTO> expenses = expenseService.getExpenseByCategoryAndMonth(category, month, user.getId());
         return ResponseEntity.ok(expenses);
     }
 
+    @GetMapping("/expenses/changes")
+    public ResponseEntity<ExpenseChangesDTO> getExpenseChanges(
+            @RequestParam(defaultValue = "0") Long since,
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        AppUser user = getUserFromAuthentication(authentication);
+        return ResponseEntity.ok(expenseChangeService.getChanges(user.getId(), since, limit));
+    }
+
     @GetMapping("/expenses/{id}")
-    public ResponseEntity<Optional<Expense>> getExpenseById(
+    public ResponseEntity<Optional<ExpenseDTO>> getExpenseById(
             @PathVariable Long id,
             Authentication authentication) {
         AppUser user = getUserFromAuthentication(authentication);
@@ -62,16 +109,28 @@ public class ExpenseController {
     }
 
     @PostMapping("/expenses")
-    public ResponseEntity<Expense> addExpense(
+    public ResponseEntity<ExpenseDTO> addExpense(
             @RequestBody Expense expense,
             Authentication authentication) {
         AppUser user = getUserFromAuthentication(authentication);
         Expense newExpense = expenseService.addExpense(expense, user.getId());
-        return new ResponseEntity<>(newExpense, HttpStatus.CREATED);
+        return new ResponseEntity<>(ExpenseDTO.from(newExpense), HttpStatus.CREATED);
+    }
+
+    // Applies every operation in order inside one transaction and reports each outcome
+    @PostMapping("/expenses/batch")
+    public ResponseEntity<List<BatchResultDTO>> applyBatch(
+            @RequestBody List<BatchOperationDTO> operations,
+            Authentication authentication) {
+        if (operations.isEmpty() || operations.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        AppUser user = getUserFromAuthentication(authentication);
+        return ResponseEntity.ok(expenseService.applyBatch(operations, user.getId()));
     }
 
     @PutMapping("/expenses/{id}")
-    public ResponseEntity<Expense> updateExpense(
+    public ResponseEntity<ExpenseDTO> updateExpense(
             @PathVariable Long id,
             @RequestBody Expense expense,
             Authentication authentication) {
@@ -79,7 +138,7 @@ public class ExpenseController {
         expense.setId(id);
         boolean isUpdated = expenseService.updateExpense(expense, user.getId());
         if (isUpdated) {
-            return new ResponseEntity<>(expense, HttpStatus.OK);
+            return new ResponseEntity<>(ExpenseDTO.from(expense), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
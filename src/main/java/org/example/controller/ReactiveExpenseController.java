@@ -0,0 +1,92 @@
+package org.example.controller;
+
+import org.example.dto.ExpenseChangesDTO;
+import org.example.dto.ExpenseDTO;
+import org.example.security.AuthenticatedUser;
+import org.example.service.ExpenseChangeService;
+import org.example.service.ReactiveExpenseService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+// Read endpoints of ExpenseController served by WebFlux in the reactive profile, with the same
+// responses. Writes, /expenses/batch, /expenses/categories/suggest and /expenses/dashboard are
+// only served by the servlet nodes.
+@RestController
+@Profile("reactive")
+public class ReactiveExpenseController {
+
+    private final ReactiveExpenseService reactiveExpenseService;
+    private final ExpenseChangeService expenseChangeService;
+
+    public ReactiveExpenseController(ReactiveExpenseService reactiveExpenseService,
+                                     ExpenseChangeService expenseChangeService) {
+        this.reactiveExpenseService = reactiveExpenseService;
+        this.expenseChangeService = expenseChangeService;
+    }
+
+    @GetMapping("/expenses")
+    public Flux<ExpenseDTO> getAllUserExpenses(@AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getAllUserExpenses(user.id());
+    }
+
+    // Newline delimited JSON, each row is flushed as the database cursor produces it
+    @GetMapping(value = "/expenses/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ExpenseDTO> exportExpenses(@AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getAllUserExpenses(user.id());
+    }
+
+    @GetMapping("/expenses/categories")
+    public Mono<ResponseEntity<List<String>>> getAllExpenseCategories(@AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getAllExpenseCategories(user.id())
+                .collectList()
+                .map(categories -> categories.isEmpty()
+                        ? ResponseEntity.status(HttpStatus.NO_CONTENT).<List<String>>body(null)
+                        : ResponseEntity.ok(categories));
+    }
+
+    @GetMapping("/expenses/day/{date}")
+    public Flux<ExpenseDTO> getExpenseByDay(@PathVariable String date,
+                                            @AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getExpenseByDay(date, user.id());
+    }
+
+    @GetMapping("/expenses/category/{category}/month")
+    public Flux<ExpenseDTO> getExpenseByCategoryAndMonth(
+            @PathVariable String category,
+            @RequestParam String month,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getExpenseByCategoryAndMonth(category, month, user.id());
+    }
+
+    // The change log is read through JPA, off the event loop
+    @GetMapping("/expenses/changes")
+    public Mono<ExpenseChangesDTO> getExpenseChanges(
+            @RequestParam(defaultValue = "0") Long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return Mono.fromCallable(() -> expenseChangeService.getChanges(user.id(), since, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // An unknown id is a 200 with a null body, like the servlet endpoint's empty Optional
+    @GetMapping("/expenses/{id}")
+    public Mono<Optional<ExpenseDTO>> getExpenseById(@PathVariable Long id,
+                                                     @AuthenticationPrincipal AuthenticatedUser user) {
+        return reactiveExpenseService.getExpenseById(id, user.id())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+}
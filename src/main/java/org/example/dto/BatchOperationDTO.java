@@ -0,0 +1,12 @@
+package org.example.dto;
+
+// One entry of POST /expenses/batch: id is required for UPDATE and DELETE,
+// expense for CREATE and UPDATE
+public record BatchOperationDTO(Type type, Long id, ExpenseDTO expense) {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+// Outcome of one batch operation, index points into the request list
+public record BatchResultDTO(int index,
+                             BatchOperationDTO.Type type,
+                             Long id,
+                             int status,
+                             String error) {
+}
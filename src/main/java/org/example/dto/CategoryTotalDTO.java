@@ -0,0 +1,7 @@
+package org.example.dto;
+
+// Sum of amounts for one category and expense type, e.g. over a month
+public record CategoryTotalDTO(String category,
+                               int expenseType,
+                               Double total) {
+}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import java.util.List;
+
+// Everything the home screen shows. A section that failed or timed out is null
+// and named in unavailable, the client can fetch it from its own endpoint.
+public record DashboardDTO(List<String> categories,
+                           List<ExpenseDTO> today,
+                           List<CategoryTotalDTO> monthTotals,
+                           List<ExpenseDTO> recent,
+                           List<String> unavailable) {
+}
@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import org.example.model.ChangeOperation;
+import org.example.model.ExpenseChange;
+
+public record ExpenseChangeDTO(Long cursor,
+                               Long expenseId,
+                               ChangeOperation operation,
+                               ExpenseDTO expense) {
+
+    public static ExpenseChangeDTO from(ExpenseChange change) {
+        ExpenseDTO expense = null;
+        if (change.getOperation() == ChangeOperation.UPSERT) {
+            expense = new ExpenseDTO(change.getExpenseId(),
+                    change.getExpenseType(),
+                    change.getDate(),
+                    change.getAmount(),
+                    change.getCategory(),
+                    change.getAccount(),
+                    change.getNote());
+        }
+        return new ExpenseChangeDTO(change.getId(), change.getExpenseId(), change.getOperation(), expense);
+    }
+}
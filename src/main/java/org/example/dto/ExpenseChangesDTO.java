@@ -0,0 +1,11 @@
+package org.example.dto;
+
+import java.util.List;
+
+// One page of the change feed. When resyncRequired is set the client must
+// drop its local copy and download the full list, then sync from cursor.
+public record ExpenseChangesDTO(List<ExpenseChangeDTO> changes,
+                                Long cursor,
+                                boolean hasMore,
+                                boolean resyncRequired) {
+}
@@ -0,0 +1,35 @@
+package org.example.dto;
+
+import org.example.model.Expense;
+
+// Read-only view of an expense, only the columns exposed by the API
+public record ExpenseDTO(Long id,
+                         int expenseType,
+                         String date,
+                         double amount,
+                         String category,
+                         String account,
+                         String note) {
+
+    public static ExpenseDTO from(Expense expense) {
+        return new ExpenseDTO(expense.getId(),
+                expense.getExpenseType(),
+                expense.getDate(),
+                expense.getAmount(),
+                expense.getCategory(),
+                expense.getAccount(),
+                expense.getNote());
+    }
+
+    public Expense toExpense() {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setExpenseType(expenseType);
+        expense.setDate(date);
+        expense.setAmount(amount);
+        expense.setCategory(category);
+        expense.setAccount(account);
+        expense.setNote(note);
+        return expense;
+    }
+}
@@ -1,13 +1,20 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Data
 @Entity
 @Table(name = "app_user")
+// Cached per node without cross-node invalidation, safe because a user's fields never change after
+// signup. The change horizon, which compaction updates, is always read with a query.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "appUser")
 public class AppUser {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,8 +27,13 @@ public class AppUser {
     @OneToMany(mappedBy = "user",
             cascade = CascadeType.ALL,
             orphanRemoval = true)
+    @JsonIgnore
     private List<Expense> expenses;
 
     @Enumerated(EnumType.STRING)
     private Role role;
+
+    // Highest change log id removed by compaction, older sync cursors must resync
+    @JsonIgnore
+    private Long changeHorizon;
 }
@@ -7,6 +7,7 @@ import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_expense_user_date", columnList = "user_id, date"))
 public class Expense {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
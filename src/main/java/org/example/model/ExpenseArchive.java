@@ -0,0 +1,23 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Cold copy of expenses older than the archive age, keeps the expense table small.
+// The id is the original expense id.
+@Data
+@Entity
+@Table(name = "expense_archive",
+        indexes = @Index(name = "idx_expense_archive_user_date", columnList = "userId, date"))
+public class ExpenseArchive {
+    @Id
+    private Long id;
+
+    private Long userId;
+    private int expenseType;
+    private String date;
+    private double amount;
+    private String category;
+    private String account;
+    private String note;
+}
@@ -0,0 +1,36 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Append-only change log entry, the id doubles as the sync cursor
+@Data
+@Entity
+@Table(name = "expense_change",
+        indexes = {
+                @Index(name = "idx_expense_change_user_cursor", columnList = "userId, id"),
+                @Index(name = "idx_expense_change_expense", columnList = "expenseId")
+        })
+public class ExpenseChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+    private Long expenseId;
+
+    @Enumerated(EnumType.STRING)
+    private ChangeOperation operation;
+
+    private Instant changedAt;
+
+    // Snapshot of the expense after the change, empty for tombstones
+    private Integer expenseType;
+    private String date;
+    private Double amount;
+    private String category;
+    private String account;
+    private String note;
+}
@@ -0,0 +1,69 @@
+package org.example.repository;
+
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
+import org.example.model.ExpenseArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseArchiveRepository extends JpaRepository<ExpenseArchive, Long> {
+    String EXPENSE_DTO = "select new org.example.dto.ExpenseDTO(" +
+            "a.id, a.expenseType, a.date, a.amount, a.category, a.account, a.note) from ExpenseArchive a ";
+
+    @Query(EXPENSE_DTO + "where a.userId = :userId order by a.date desc")
+    List<ExpenseDTO> findDtoByUserId(@Param("userId") Long userId);
+
+    @Query(EXPENSE_DTO + "where a.userId = :userId and a.date = :date order by a.date desc")
+    List<ExpenseDTO> findDtoByUserIdAndDate(@Param("userId") Long userId,
+                                            @Param("date") String date);
+
+    @Query(EXPENSE_DTO + "where a.userId = :userId and lower(a.category) = lower(:category) " +
+            "and a.date like concat(:month, '%') order by a.date desc")
+    List<ExpenseDTO> findDtoByUserIdAndCategoryAndMonth(@Param("userId") Long userId,
+                                                        @Param("category") String category,
+                                                        @Param("month") String month);
+
+    @Query(EXPENSE_DTO + "where a.id = :id and a.userId = :userId")
+    Optional<ExpenseDTO> findDtoByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("select new org.example.dto.CategoryTotalDTO(a.category, a.expenseType, sum(a.amount)) from ExpenseArchive a " +
+            "where a.userId = :userId and a.date like concat(:month, '%') group by a.category, a.expenseType")
+    List<CategoryTotalDTO> findCategoryTotalsByUserIdAndMonth(@Param("userId") Long userId,
+                                                              @Param("month") String month);
+
+    @Query("select a.category from ExpenseArchive a where a.userId = :userId order by a.date desc")
+    List<String> findCategoriesByUserId(@Param("userId") Long userId);
+
+    // Locks the chunk so no update can commit between its copy and its delete
+    @Query(value = "select id from expense where date < :cutoff order by id limit :limit for update", nativeQuery = true)
+    List<Long> lockHotIdsOlderThan(@Param("cutoff") String cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("insert into ExpenseArchive (id, userId, expenseType, date, amount, category, account, note) " +
+            "select e.id, e.user.id, e.expenseType, e.date, e.amount, e.category, e.account, e.note " +
+            "from Expense e where e.id in :ids and e.date < :cutoff")
+    int copyFromHot(@Param("ids") Collection<Long> ids, @Param("cutoff") String cutoff);
+
+    @Modifying
+    @Query("delete from Expense e where e.id in :ids and e.date < :cutoff")
+    int deleteHot(@Param("ids") Collection<Long> ids, @Param("cutoff") String cutoff);
+
+    // Native because the row keeps its id, which an identity insert through JPA would not
+    @Modifying
+    @Query(value = "insert into expense (id, user_id, expense_type, date, amount, category, account, note) " +
+            "select id, user_id, expense_type, date, amount, category, account, note " +
+            "from expense_archive where id = :id and user_id = :userId", nativeQuery = true)
+    int copyToHot(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from ExpenseArchive a where a.id = :id and a.userId = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+}
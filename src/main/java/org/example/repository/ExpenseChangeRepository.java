@@ -0,0 +1,40 @@
+package org.example.repository;
+
+import org.example.model.ChangeOperation;
+import org.example.model.ExpenseChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseChangeRepository extends JpaRepository<ExpenseChange, Long> {
+    List<ExpenseChange> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long cursor, Limit limit);
+
+    Optional<ExpenseChange> findFirstByUserIdOrderByIdDesc(Long userId);
+
+    // Only the newest entry per expense is needed to bring any cursor up to date
+    @Modifying
+    @Query("delete from ExpenseChange c where c.id < " +
+            "(select max(c2.id) from ExpenseChange c2 where c2.expenseId = c.expenseId)")
+    int deleteSuperseded();
+
+    @Modifying
+    @Query("update AppUser u set u.changeHorizon = " +
+            "(select max(c.id) from ExpenseChange c where c.userId = u.id " +
+            "and c.operation = :operation and c.changedAt < :cutoff) " +
+            "where exists (select c.id from ExpenseChange c where c.userId = u.id " +
+            "and c.operation = :operation and c.changedAt < :cutoff)")
+    int advanceHorizon(@Param("operation") ChangeOperation operation, @Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from ExpenseChange c where c.operation = :operation and c.changedAt < :cutoff")
+    int deleteByOperationAndChangedAtBefore(@Param("operation") ChangeOperation operation,
+                                           @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,99 @@
+package org.example.repository;
+
+import io.r2dbc.spi.Readable;
+import org.example.dto.ExpenseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of ExpenseRepository for the reactive profile.
+// Rows are pulled from a server-side cursor in fetchSize chunks as downstream demand arrives.
+// Every read covers expense and expense_archive, like the servlet service. There is a single
+// R2DBC connection factory, so the profile refuses to start when sharding is enabled.
+@Repository
+@Profile("reactive")
+public class ExpenseReactiveRepository {
+    private static final String EXPENSE_COLUMNS = "id, expense_type, date, amount, category, account, note";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public ExpenseReactiveRepository(DatabaseClient databaseClient,
+                                     @Value("${expense.reactive.fetch-size:256}") int fetchSize,
+                                     @Value("${sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("The reactive profile reads a single database and cannot run with sharding enabled");
+        }
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    // Hot and archived rows matching the same condition, newest first
+    private static String hotAndArchived(String columns, String condition) {
+        return "select " + columns + " from expense where " + condition +
+                " union all select " + columns + " from expense_archive where " + condition +
+                " order by date desc";
+    }
+
+    public Flux<ExpenseDTO> findByUserId(Long userId) {
+        return databaseClient
+                .sql(hotAndArchived(EXPENSE_COLUMNS, "user_id = :userId"))
+                .bind("userId", userId)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ExpenseReactiveRepository::toDto)
+                .all();
+    }
+
+    public Flux<ExpenseDTO> findByUserIdAndDate(Long userId, String date) {
+        return databaseClient
+                .sql(hotAndArchived(EXPENSE_COLUMNS, "user_id = :userId and date = :date"))
+                .bind("userId", userId)
+                .bind("date", date)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ExpenseReactiveRepository::toDto)
+                .all();
+    }
+
+    public Flux<ExpenseDTO> findByUserIdAndCategoryAndMonth(Long userId, String category, String month) {
+        return databaseClient
+                .sql(hotAndArchived(EXPENSE_COLUMNS,
+                        "user_id = :userId and lower(category) = lower(:category) and date like :month"))
+                .bind("userId", userId)
+                .bind("category", category)
+                .bind("month", month + "%")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ExpenseReactiveRepository::toDto)
+                .all();
+    }
+
+    public Mono<ExpenseDTO> findByIdAndUserId(Long id, Long userId) {
+        return databaseClient
+                .sql(hotAndArchived(EXPENSE_COLUMNS, "id = :id and user_id = :userId"))
+                .bind("id", id)
+                .bind("userId", userId)
+                .map(ExpenseReactiveRepository::toDto)
+                .first();
+    }
+
+    public Flux<String> findCategoriesByUserId(Long userId) {
+        return databaseClient
+                .sql(hotAndArchived("category, date", "user_id = :userId and category is not null"))
+                .bind("userId", userId)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(row -> row.get("category", String.class))
+                .all();
+    }
+
+    private static ExpenseDTO toDto(Readable row) {
+        return new ExpenseDTO(row.get("id", Long.class),
+                row.get("expense_type", Integer.class),
+                row.get("date", String.class),
+                row.get("amount", Double.class),
+                row.get("category", String.class),
+                row.get("account", String.class),
+                row.get("note", String.class));
+    }
+}
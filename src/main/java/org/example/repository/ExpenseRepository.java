@@ -1,14 +1,52 @@
 package org.example.repository;
 
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
 import org.example.model.Expense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+    String EXPENSE_DTO = "select new org.example.dto.ExpenseDTO(" +
+            "e.id, e.expenseType, e.date, e.amount, e.category, e.account, e.note) from Expense e ";
+
     List<Expense> findByUserIdOrderByDateDesc(Long userId);
     Optional<Expense> findByIdAndUserId(Long id, Long userId);
+    List<Expense> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    // Projections used by the read endpoints, no managed entities are created
+    @Query(EXPENSE_DTO + "where e.user.id = :userId order by e.date desc")
+    List<ExpenseDTO> findDtoByUserId(@Param("userId") Long userId);
+
+    @Query(EXPENSE_DTO + "where e.user.id = :userId and e.date = :date order by e.date desc")
+    List<ExpenseDTO> findDtoByUserIdAndDate(@Param("userId") Long userId,
+                                            @Param("date") String date);
+
+    @Query(EXPENSE_DTO + "where e.user.id = :userId and lower(e.category) = lower(:category) " +
+            "and e.date like concat(:month, '%') order by e.date desc")
+    List<ExpenseDTO> findDtoByUserIdAndCategoryAndMonth(@Param("userId") Long userId,
+                                                        @Param("category") String category,
+                                                        @Param("month") String month);
+
+    @Query(EXPENSE_DTO + "where e.id = :id and e.user.id = :userId")
+    Optional<ExpenseDTO> findDtoByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(EXPENSE_DTO + "where e.user.id = :userId order by e.date desc, e.id desc")
+    List<ExpenseDTO> findRecentDtoByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select new org.example.dto.CategoryTotalDTO(e.category, e.expenseType, sum(e.amount)) from Expense e " +
+            "where e.user.id = :userId and e.date like concat(:month, '%') group by e.category, e.expenseType")
+    List<CategoryTotalDTO> findCategoryTotalsByUserIdAndMonth(@Param("userId") Long userId,
+                                                              @Param("month") String month);
+
+    @Query("select e.category from Expense e where e.user.id = :userId order by e.date desc")
+    List<String> findCategoriesByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import org.example.model.Role;
+import org.example.security.AuthenticatedUser;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Profile("reactive")
+public class UserReactiveRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public UserReactiveRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<UserRow> findByUsername(String username) {
+        return databaseClient
+                .sql("select id, username, role from app_user where lower(username) = lower(:username)")
+                .bind("username", username)
+                .map(row -> new UserRow(
+                        new AuthenticatedUser(row.get("id", Long.class), row.get("username", String.class)),
+                        Role.valueOf(row.get("role", String.class))))
+                .first();
+    }
+
+    public record UserRow(AuthenticatedUser user, Role role) {
+        public SimpleGrantedAuthority authority() {
+            return new SimpleGrantedAuthority("ROLE_" + role.name());
+        }
+    }
+}
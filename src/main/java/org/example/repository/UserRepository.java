@@ -1,7 +1,11 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.model.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -10,4 +14,15 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
+
+    Optional<AppUser> findFirstByUsernameIgnoreCase(String username);
+
+    // A query, not the cached entity: compaction advances the horizon on whichever node runs it
+    @Query("select u.changeHorizon from AppUser u where u.id = :id")
+    Optional<Long> findChangeHorizonById(@Param("id") Long id);
+
+    // Row lock held until commit, serializes the user's change log writes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AppUser u where u.id = :id")
+    Optional<AppUser> lockById(@Param("id") Long id);
 }
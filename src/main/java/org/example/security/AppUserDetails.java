@@ -0,0 +1,21 @@
+package org.example.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// Principal of the servlet stack, carries the id so the access log needs no username
+public class AppUserDetails extends User {
+    private final Long id;
+
+    public AppUserDetails(Long id, String username, String password,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.security;
+
+// Principal of the reactive stack, carries the id so handlers need no user lookup
+public record AuthenticatedUser(Long id, String username) {
+}
@@ -4,9 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.example.service.impl.UserDetailServiceImpl;
 import org.example.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,7 +17,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@Slf4j
 @Component
+@Profile("!reactive")
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     @Autowired
@@ -40,10 +44,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 username = jwtUtil.extractUsername(token);
 
             } catch (Exception ex) {
-                System.out.println("Error extracting username from JWT token");
+                log.debug("Error extracting username from JWT token");
             }
         } else {
-            System.out.println("JWT token is not bearer token");
+            log.trace("JWT token is not bearer token");
         }
 
         if (username != null &&
@@ -0,0 +1,39 @@
+package org.example.security;
+
+import org.example.repository.UserReactiveRepository;
+import org.example.utils.JwtUtil;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+// Reactive counterpart of JwtAuthFilter, the credentials of the incoming authentication are the raw token
+@Component
+@Profile("reactive")
+public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final JwtUtil jwtUtil;
+    private final UserReactiveRepository userReactiveRepository;
+
+    public JwtReactiveAuthenticationManager(JwtUtil jwtUtil, UserReactiveRepository userReactiveRepository) {
+        this.jwtUtil = jwtUtil;
+        this.userReactiveRepository = userReactiveRepository;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String token = authentication.getCredentials().toString();
+        return Mono.fromCallable(() -> jwtUtil.extractUsername(token))
+                .onErrorMap(ex -> new BadCredentialsException("Invalid JWT token"))
+                .flatMap(userReactiveRepository::findByUsername)
+                .filter(row -> jwtUtil.validateToken(token, row.user().username()))
+                .switchIfEmpty(Mono.error(new BadCredentialsException("Invalid JWT token")))
+                .map(row -> new UsernamePasswordAuthenticationToken(
+                        row.user(), null, Collections.singleton(row.authority())));
+    }
+}
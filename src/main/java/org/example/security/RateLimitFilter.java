@@ -0,0 +1,78 @@
+package org.example.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.RateLimitProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Not a bean on purpose: Boot would also register it as a servlet filter that runs
+// before JwtAuthFilter, when the user is not known yet
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitProperties.Group group = findGroup(request.getServletPath());
+        if (group != null) {
+            String key = group.getName() + ":" + resolveKey(group, request);
+            long waitNanos = rateLimiter.tryAcquire(key, group.getCapacity(), group.getRefillPerSecond());
+            if (waitNanos > 0) {
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitProperties.Group findGroup(String path) {
+        for (RateLimitProperties.Group group : properties.getGroups()) {
+            for (String pattern : group.getPaths()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String resolveKey(RateLimitProperties.Group group, HttpServletRequest request) {
+        if (group.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        // Unauthenticated callers are limited per address
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets keyed by "group:user" or "group:ip", updated with a single CAS and never locked
+@Component
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // Returns 0 when the request may proceed, otherwise the nanoseconds until a token is available
+    public long tryAcquire(String key, int capacity, double refillPerSecond) {
+        return buckets
+                .computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond))
+                .tryAcquire(System.nanoTime());
+    }
+
+    // A full bucket behaves exactly like a missing one, so it can be dropped
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    // Token bucket expressed as a theoretical arrival time (GCRA): one token is
+    // released every interval and up to capacity tokens may be spent at once
+    static final class TokenBucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong arrivalTime = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(int capacity, double refillPerSecond) {
+            this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long current = arrivalTime.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long wait = next - now - burstNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (arrivalTime.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return arrivalTime.get() <= now;
+        }
+    }
+}
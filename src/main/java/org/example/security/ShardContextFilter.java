@@ -0,0 +1,55 @@
+package org.example.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.ShardContext;
+import org.example.config.ShardRouter;
+import org.example.config.UserMovingException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Pins the request thread to the authenticated user's shard. Writes resolve it from the directory
+// and are refused with 503 while the user is being moved.
+public class ShardContextFilter extends OncePerRequestFilter {
+
+    private final ShardRouter shardRouter;
+
+    public ShardContextFilter(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+            try {
+                ShardContext.set(isRead(request)
+                        ? shardRouter.shardFor(authentication.getName())
+                        : shardRouter.shardForWrite(authentication.getName()));
+            } catch (UserMovingException e) {
+                response.setHeader("Retry-After", "5");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            }
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.service;
+
+import org.example.dto.DashboardDTO;
+
+public interface DashboardService {
+    DashboardDTO getDashboard(Long userId);
+}
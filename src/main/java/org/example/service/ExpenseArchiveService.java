@@ -0,0 +1,28 @@
+package org.example.service;
+
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ExpenseArchiveService {
+    // Reads always consult the archive: which rows it holds depends on past runs and restores,
+    // not on the current enabled flag or cutoff
+    List<ExpenseDTO> getAllUserExpenses(Long userId);
+
+    List<ExpenseDTO> getExpenseByDay(String date, Long userId);
+
+    List<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId);
+
+    List<CategoryTotalDTO> getCategoryTotalsByMonth(String month, Long userId);
+
+    List<String> getAllExpenseCategories(Long userId);
+
+    Optional<ExpenseDTO> getExpenseById(Long id, Long userId);
+
+    // Moves an archived expense back to the expense table, false when it is not archived
+    boolean restore(Long id, Long userId);
+
+    int archive();
+}
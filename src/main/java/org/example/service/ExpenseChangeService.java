@@ -0,0 +1,18 @@
+package org.example.service;
+
+import org.example.dto.ExpenseChangesDTO;
+import org.example.model.Expense;
+
+public interface ExpenseChangeService {
+    // Takes the user's row lock for the rest of the current transaction, once per transaction.
+    // Shard moves take the same lock, so every expense write takes it before touching any row.
+    void lockUser(Long userId);
+
+    void recordUpsert(Expense expense, Long userId);
+
+    void recordDelete(Long expenseId, Long userId);
+
+    ExpenseChangesDTO getChanges(Long userId, Long since, int limit);
+
+    void compact();
+}
@@ -1,5 +1,9 @@
 package org.example.service;
 
+import org.example.dto.BatchOperationDTO;
+import org.example.dto.BatchResultDTO;
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
 import org.example.model.Expense;
 
 import java.util.List;
@@ -7,18 +11,26 @@ import java.util.Optional;
 
 public interface ExpenseService {
 
-    List<Expense> getAllUserExpenses(Long userId);
-    List<Expense> getExpenseByDay(String date, Long userId);
+    List<ExpenseDTO> getAllUserExpenses(Long userId);
+    List<ExpenseDTO> getExpenseByDay(String date, Long userId);
 
-    List<Expense> getExpenseByCategoryAndMonth(String category, String month, Long userId);
+    List<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId);
 
     List<String> getAllExpenseCategories(Long userId);
 
-    Optional<Expense> getExpenseById(Long id, Long userId);
+    List<CategoryTotalDTO> getCategoryTotalsByMonth(String month, Long userId);
+
+    List<ExpenseDTO> getRecentExpenses(int limit, Long userId);
+
+    List<String> suggestCategories(String prefix, int limit, Long userId);
+
+    Optional<ExpenseDTO> getExpenseById(Long id, Long userId);
 
     Expense addExpense(Expense expense, Long userId);
 
     boolean updateExpense(Expense expense, Long userId);
 
     boolean deleteExpense(Long id, Long userId);
+
+    List<BatchResultDTO> applyBatch(List<BatchOperationDTO> operations, Long userId);
 }
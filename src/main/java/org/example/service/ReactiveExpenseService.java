@@ -0,0 +1,18 @@
+package org.example.service;
+
+import org.example.dto.ExpenseDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveExpenseService {
+
+    Flux<ExpenseDTO> getAllUserExpenses(Long userId);
+
+    Flux<ExpenseDTO> getExpenseByDay(String date, Long userId);
+
+    Flux<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId);
+
+    Flux<String> getAllExpenseCategories(Long userId);
+
+    Mono<ExpenseDTO> getExpenseById(Long id, Long userId);
+}
@@ -0,0 +1,13 @@
+package org.example.service;
+
+import java.util.Map;
+
+public interface ShardService {
+    boolean isEnabled();
+
+    Map<Integer, Long> getUserCounts();
+
+    boolean moveUser(String username, int targetShard);
+
+    int rebalance(int maxMoves);
+}
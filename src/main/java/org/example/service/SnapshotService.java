@@ -0,0 +1,10 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface SnapshotService {
+    long export(Path file) throws IOException;
+
+    long restore(Path file, boolean replace) throws IOException;
+}
@@ -1,5 +1,6 @@
 package org.example.service.impl;
 
+import org.example.config.ShardRouter;
 import org.example.model.AppUser;
 import org.example.repository.UserRepository;
 import org.example.service.AdminService;
@@ -10,13 +11,19 @@ import java.util.List;
 @Service
 public class AdminServiceImpl implements AdminService {
     private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
 
-    public AdminServiceImpl(UserRepository userRepository) {
+    public AdminServiceImpl(UserRepository userRepository, ShardRouter shardRouter) {
         this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
     }
 
+    // Not transactional itself: each shard is read in its own read-only repository transaction
     @Override
     public List<AppUser> getAllUsers() {
-        return userRepository.findAll();
+        return shardRouter.onEachShard(userRepository::findAll)
+                .stream()
+                .flatMap(List::stream)
+                .toList();
     }
 }
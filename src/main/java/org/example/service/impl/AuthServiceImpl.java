@@ -1,5 +1,7 @@
 package org.example.service.impl;
 
+import org.example.config.ShardContext;
+import org.example.config.ShardRouter;
 import org.example.dto.AppUserDTO;
 import org.example.dto.AuthDTO;
 import org.example.dto.AuthResponseDTO;
@@ -8,37 +10,53 @@ import org.example.model.Role;
 import org.example.service.AuthService;
 import org.example.service.UserService;
 import org.example.utils.JwtUtil;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
+// Signup and login are served by the servlet nodes only
 @Service
+@Profile("!reactive")
 public class AuthServiceImpl implements AuthService {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final ShardRouter shardRouter;
 
     public AuthServiceImpl(UserService userService,
                            PasswordEncoder passwordEncoder,
                            AuthenticationManager authenticationManager,
-                           JwtUtil jwtUtil) {
+                           JwtUtil jwtUtil,
+                           ShardRouter shardRouter) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.shardRouter = shardRouter;
     }
 
+    // One read-write transaction, so the automatic login reads the new user from the primary
     @Override
+    @Transactional
     public AuthResponseDTO registerUser(AppUserDTO appUserDTO) {
-        // Check if username already exists
-        if (userService.findByUsername(appUserDTO.getUsername()) != null) {
+        // The connection is only taken on the first statement, inside the user's shard
+        int shard = shardRouter.placementFor(appUserDTO.getUsername());
+        return ShardContext.call(shard, () -> createUser(appUserDTO, shard));
+    }
+
+    private AuthResponseDTO createUser(AppUserDTO appUserDTO, int shard) {
+        // Check if username already exists, on this shard and in the directory of all shards
+        if (userService.findByUsername(appUserDTO.getUsername()) != null
+                || !shardRouter.claim(appUserDTO.getUsername(), shard)) {
             return new AuthResponseDTO(null, "error: Username is already taken.");
         }
 
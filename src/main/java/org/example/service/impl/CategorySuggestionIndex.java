@@ -0,0 +1,211 @@
+package org.example.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// In-memory category autocomplete. Each user's categories are kept as an array sorted by lower-cased
+// name, so a prefix is a binary search plus a scan of the matching range, weighted by how many
+// expenses use the category. A user is loaded on first use and then kept in sync by the write
+// paths after commit. A load that overlaps one of the user's writes may have missed it, or seen it
+// and then get it applied again, so it is served but not kept. Entries expire so other instances'
+// writes show up eventually.
+@Component
+public class CategorySuggestionIndex {
+    private static final Comparator<Category> BY_USAGE = Comparator.comparingInt(Category::count).reversed()
+            .thenComparing(Category::key);
+
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Long, UserCategories> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, UserWrites> writes = new ConcurrentHashMap<>();
+
+    public CategorySuggestionIndex(@Value("${expense.categories.suggest-ttl:10m}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // The loader returns the category of every expense the user has, one entry per expense
+    public List<String> suggest(Long userId, String prefix, int limit, Supplier<List<String>> loader) {
+        long now = System.nanoTime();
+        UserCategories categories = users.get(userId);
+        if (categories == null || now >= categories.expiresAt) {
+            long stamp = writeStamp(userId);
+            categories = new UserCategories(loader.get(), now + ttlNanos);
+            if (stamp >= 0 && stamp == writeStamp(userId)) {
+                users.put(userId, categories);
+            } else {
+                users.remove(userId);
+            }
+        }
+        return categories.suggest(key(prefix), limit);
+    }
+
+    // Applies an expense write once its transaction commits, null for a side that does not apply
+    public void record(Long userId, String removedCategory, String addedCategory) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            writes.compute(userId, (id, userWrites) -> (userWrites == null ? new UserWrites() : userWrites).begin());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            apply(userId, removedCategory, addedCategory);
+                        }
+                    } finally {
+                        writes.computeIfPresent(userId, (id, userWrites) -> userWrites.end());
+                    }
+                }
+            });
+        } else {
+            writes.compute(userId, (id, userWrites) -> (userWrites == null ? new UserWrites() : userWrites).begin().end());
+            apply(userId, removedCategory, addedCategory);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${expense.categories.suggest-eviction-interval:PT5M}")
+    public void evictExpiredEntries() {
+        long now = System.nanoTime();
+        users.values().removeIf(categories -> now >= categories.expiresAt);
+        // Idle for longer than any load takes, so no load in progress can have stamped them
+        writes.keySet().forEach(userId -> writes.computeIfPresent(userId,
+                (id, userWrites) -> userWrites.idleSince(now - ttlNanos) ? null : userWrites));
+    }
+
+    // Changes whenever one of the user's writes completes, -1 while one is in flight
+    private long writeStamp(Long userId) {
+        UserWrites userWrites = writes.get(userId);
+        return userWrites == null ? 0 : userWrites.stamp();
+    }
+
+    private void apply(Long userId, String removedCategory, String addedCategory) {
+        // Users that are not loaded pick the change up when they are
+        UserCategories categories = users.get(userId);
+        if (categories != null) {
+            categories.update(removedCategory, addedCategory);
+        }
+    }
+
+    private static String key(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Category(String key, String name, int count) {
+    }
+
+    private static final class UserWrites {
+        private int inFlight;
+        private long completed;
+        private long lastCompletedAt = System.nanoTime();
+
+        synchronized UserWrites begin() {
+            inFlight++;
+            return this;
+        }
+
+        synchronized UserWrites end() {
+            inFlight--;
+            completed++;
+            lastCompletedAt = System.nanoTime();
+            return this;
+        }
+
+        synchronized long stamp() {
+            return inFlight > 0 ? -1 : completed;
+        }
+
+        synchronized boolean idleSince(long time) {
+            return inFlight == 0 && lastCompletedAt - time < 0;
+        }
+    }
+
+    private static final class UserCategories {
+        private final long expiresAt;
+        private final Map<String, Category> byKey = new HashMap<>();
+        private volatile Category[] sorted;
+
+        UserCategories(List<String> categories, long expiresAt) {
+            this.expiresAt = expiresAt;
+            categories.forEach(category -> add(category, 1));
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            Category[] snapshot = sorted;
+            if (snapshot == null) {
+                snapshot = rebuild();
+            }
+
+            int from = lowerBound(snapshot, prefix);
+            PriorityQueue<Category> top = new PriorityQueue<>(limit + 1, BY_USAGE.reversed());
+            for (int i = from; i < snapshot.length && snapshot[i].key().startsWith(prefix); i++) {
+                top.add(snapshot[i]);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Category> result = new ArrayList<>(top);
+            result.sort(BY_USAGE);
+            return result.stream().map(Category::name).toList();
+        }
+
+        synchronized void update(String removedCategory, String addedCategory) {
+            if (removedCategory != null) {
+                add(removedCategory, -1);
+            }
+            if (addedCategory != null) {
+                add(addedCategory, 1);
+            }
+            sorted = null;
+        }
+
+        private synchronized Category[] rebuild() {
+            if (sorted == null) {
+                Category[] categories = byKey.values().toArray(new Category[0]);
+                Arrays.sort(categories, Comparator.comparing(Category::key));
+                sorted = categories;
+            }
+            return sorted;
+        }
+
+        // Keeps the spelling it saw first for case variants of the same category
+        private void add(String category, int delta) {
+            String key = key(category);
+            if (key.isEmpty()) {
+                return;
+            }
+            Category existing = byKey.get(key);
+            int count = (existing == null ? 0 : existing.count()) + delta;
+            if (count <= 0) {
+                byKey.remove(key);
+            } else {
+                byKey.put(key, new Category(key, existing == null ? category.trim() : existing.name(), count));
+            }
+        }
+
+        private static int lowerBound(Category[] categories, String prefix) {
+            int low = 0;
+            int high = categories.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (categories[mid].key().compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.ShardContext;
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.DashboardDTO;
+import org.example.dto.ExpenseDTO;
+import org.example.service.DashboardService;
+import org.example.service.ExpenseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs the home screen queries side by side on a bounded pool. Each query is a separate read-only
+// transaction on a worker thread, so the caller's shard and security context (used for replica
+// stickiness) are handed over explicitly. The request waits at most the timeout for all of them; a
+// section that fails, is still running, or finds the pool saturated comes back null and is listed as unavailable.
+@Slf4j
+@Service
+public class DashboardServiceImpl implements DashboardService {
+
+    private final ExpenseService expenseService;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final int recentLimit;
+
+    public DashboardServiceImpl(ExpenseService expenseService,
+                                @Value("${expense.dashboard.threads:8}") int threads,
+                                @Value("${expense.dashboard.queue-capacity:100}") int queueCapacity,
+                                @Value("${expense.dashboard.timeout:2s}") Duration timeout,
+                                @Value("${expense.dashboard.recent-limit:10}") int recentLimit) {
+        this.expenseService = expenseService;
+        this.timeout = timeout;
+        this.recentLimit = recentLimit;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public DashboardDTO getDashboard(Long userId) {
+        LocalDate today = LocalDate.now();
+        String month = today.toString().substring(0, 7);
+        List<String> unavailable = new ArrayList<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        CompletableFuture<List<String>> categories = fork(
+                () -> expenseService.getAllExpenseCategories(userId));
+        CompletableFuture<List<ExpenseDTO>> todayExpenses = fork(
+                () -> expenseService.getExpenseByDay(today.toString(), userId));
+        CompletableFuture<List<CategoryTotalDTO>> monthTotals = fork(
+                () -> expenseService.getCategoryTotalsByMonth(month, userId));
+        CompletableFuture<List<ExpenseDTO>> recent = fork(
+                () -> expenseService.getRecentExpenses(recentLimit, userId));
+
+        return new DashboardDTO(
+                await("categories", categories, deadline, unavailable),
+                await("today", todayExpenses, deadline, unavailable),
+                await("monthTotals", monthTotals, deadline, unavailable),
+                await("recent", recent, deadline, unavailable),
+                List.copyOf(unavailable));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> fork(Supplier<T> query) {
+        int shard = ShardContext.current();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> ShardContext.call(shard, () -> withSecurityContext(securityContext, query)), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // A failed or slow query yields null instead of failing the whole dashboard. A timed out query
+    // keeps running on its worker until it finishes, the pool bound keeps that in check.
+    private static <T> T await(String section, CompletableFuture<T> future, long deadline, List<String> unavailable) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.warn("Dashboard section {} unavailable: {}", section, cause.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Dashboard section {} unavailable: interrupted", section);
+        }
+        unavailable.add(section);
+        return null;
+    }
+
+    private static <T> T withSecurityContext(SecurityContext securityContext, Supplier<T> query) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            return query.get();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.ShardRouter;
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
+import org.example.repository.ExpenseArchiveRepository;
+import org.example.service.ExpenseArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class ExpenseArchiveServiceImpl implements ExpenseArchiveService {
+
+    private final ExpenseArchiveRepository expenseArchiveRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int batchSize;
+
+    public ExpenseArchiveServiceImpl(ExpenseArchiveRepository expenseArchiveRepository,
+                                     ShardRouter shardRouter,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${expense.archive.enabled:true}") boolean enabled,
+                                     @Value("${expense.archive.after:365d}") Duration archiveAfter,
+                                     @Value("${expense.archive.batch-size:1000}") int batchSize) {
+        this.expenseArchiveRepository = expenseArchiveRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+    }
+
+    private String cutoffDate() {
+        return LocalDate.now().minusDays(archiveAfter.toDays()).toString();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getAllUserExpenses(Long userId) {
+        return expenseArchiveRepository.findDtoByUserId(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getExpenseByDay(String date, Long userId) {
+        return expenseArchiveRepository.findDtoByUserIdAndDate(userId, date);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId) {
+        return expenseArchiveRepository.findDtoByUserIdAndCategoryAndMonth(userId, category, month);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CategoryTotalDTO> getCategoryTotalsByMonth(String month, Long userId) {
+        return expenseArchiveRepository.findCategoryTotalsByUserIdAndMonth(userId, month);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getAllExpenseCategories(Long userId) {
+        return expenseArchiveRepository.findCategoriesByUserId(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ExpenseDTO> getExpenseById(Long id, Long userId) {
+        return expenseArchiveRepository.findDtoByIdAndUserId(id, userId);
+    }
+
+    // Joins the caller's write, which then finds the expense in the expense table. The next
+    // archive run moves it back if it is still old enough.
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean restore(Long id, Long userId) {
+        if (id == null || expenseArchiveRepository.copyToHot(id, userId) == 0) {
+            return false;
+        }
+        expenseArchiveRepository.deleteByIdAndUserId(id, userId);
+        return true;
+    }
+
+    // Rows move in chunks of batch-size, each locked, copied and deleted in its own transaction,
+    // so a row is never in both tables or neither and no run holds locks on the whole table
+    @Override
+    @Scheduled(cron = "${expense.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        if (!enabled) {
+            return 0;
+        }
+        String cutoff = cutoffDate();
+        int moved = shardRouter.onEachShard(() -> archiveCurrentShard(cutoff))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        log.info("Archived {} expenses dated before {}", moved, cutoff);
+        return moved;
+    }
+
+    private int archiveCurrentShard(String cutoff) {
+        int moved = 0;
+        while (true) {
+            Integer chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = expenseArchiveRepository.lockHotIdsOlderThan(cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int copied = expenseArchiveRepository.copyFromHot(ids, cutoff);
+                int deleted = expenseArchiveRepository.deleteHot(ids, cutoff);
+                if (copied != deleted) {
+                    throw new IllegalStateException("Archived " + copied + " expenses but removed " + deleted);
+                }
+                return copied;
+            });
+            if (chunk == null || chunk == 0) {
+                return moved;
+            }
+            moved += chunk;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.service.impl;
+
+import org.example.config.ShardContext;
+import org.example.config.ShardRouter;
+import org.example.config.UserMovingException;
+import org.example.dto.ExpenseChangeDTO;
+import org.example.dto.ExpenseChangesDTO;
+import org.example.model.ChangeOperation;
+import org.example.model.Expense;
+import org.example.model.ExpenseChange;
+import org.example.repository.ExpenseChangeRepository;
+import org.example.repository.UserRepository;
+import org.example.service.ExpenseChangeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class ExpenseChangeServiceImpl implements ExpenseChangeService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ExpenseChangeRepository expenseChangeRepository;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration tombstoneRetention;
+
+    public ExpenseChangeServiceImpl(ExpenseChangeRepository expenseChangeRepository,
+                                    UserRepository userRepository,
+                                    ShardRouter shardRouter,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${expense.changes.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.expenseChangeRepository = expenseChangeRepository;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    // Joins the caller's transaction so the log entry commits with the expense write.
+    // Identity values are handed out at insert, not at commit, so two concurrent writers could
+    // commit ids out of order and a client that already read past the higher one would never see
+    // the lower. Locking the user's row first makes each user's entries commit in id order.
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockUser(Long userId) {
+        if (lockedUsers().add(userId) && userRepository.lockById(userId).isEmpty()) {
+            // A shard move deleted the user here while this write waited for the lock
+            throw new UserMovingException(userId);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpsert(Expense expense, Long userId) {
+        ExpenseChange change = newChange(expense.getId(), userId, ChangeOperation.UPSERT);
+        change.setExpenseType(expense.getExpenseType());
+        change.setDate(expense.getDate());
+        change.setAmount(expense.getAmount());
+        change.setCategory(expense.getCategory());
+        change.setAccount(expense.getAccount());
+        change.setNote(expense.getNote());
+        expenseChangeRepository.save(change);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDelete(Long expenseId, Long userId) {
+        expenseChangeRepository.save(newChange(expenseId, userId, ChangeOperation.DELETE));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ExpenseChangesDTO getChanges(Long userId, Long since, int limit) {
+        long cursor = since == null ? 0L : since;
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Long horizon = userRepository.findChangeHorizonById(userId).orElse(null);
+        // Resync when tombstones the client has not seen were compacted away,
+        // or when the cursor was issued by another shard before the user was moved
+        boolean compacted = horizon != null && cursor < horizon;
+        boolean otherShard = cursor != 0 && !shardRouter.inCurrentBlock(cursor);
+        if (compacted || otherShard) {
+            Long latest = expenseChangeRepository.findFirstByUserIdOrderByIdDesc(userId)
+                    .map(ExpenseChange::getId)
+                    .orElse(horizon != null ? horizon : ShardRouter.idBlockStart(ShardContext.current()));
+            return new ExpenseChangesDTO(List.of(), latest, false, true);
+        }
+
+        List<ExpenseChange> page = expenseChangeRepository
+                .findByUserIdAndIdGreaterThanOrderByIdAsc(userId, cursor, Limit.of(pageSize + 1));
+        boolean hasMore = page.size() > pageSize;
+        List<ExpenseChangeDTO> changes = page.stream()
+                .limit(pageSize)
+                .map(ExpenseChangeDTO::from)
+                .toList();
+        long nextCursor = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).cursor();
+        return new ExpenseChangesDTO(changes, nextCursor, hasMore, false);
+    }
+
+    // One transaction per shard
+    @Override
+    @Scheduled(fixedDelayString = "${expense.changes.compaction-interval:PT1H}")
+    public void compact() {
+        shardRouter.onEachShard(() -> transactionTemplate.execute(status -> {
+            compactCurrentShard();
+            return null;
+        }));
+    }
+
+    private void compactCurrentShard() {
+        expenseChangeRepository.deleteSuperseded();
+
+        Instant cutoff = Instant.now().minus(tombstoneRetention);
+        expenseChangeRepository.advanceHorizon(ChangeOperation.DELETE, cutoff);
+        expenseChangeRepository.deleteByOperationAndChangedAtBefore(ChangeOperation.DELETE, cutoff);
+    }
+
+    // Synchronizations are suspended with their transaction, so a nested REQUIRES_NEW
+    // transaction starts with no locked users of its own
+    private static Set<Long> lockedUsers() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof LockedUsers lockedUsers) {
+                return lockedUsers.userIds;
+            }
+        }
+        LockedUsers lockedUsers = new LockedUsers();
+        TransactionSynchronizationManager.registerSynchronization(lockedUsers);
+        return lockedUsers.userIds;
+    }
+
+    private static final class LockedUsers implements TransactionSynchronization {
+        private final Set<Long> userIds = new HashSet<>();
+    }
+
+    private ExpenseChange newChange(Long expenseId, Long userId, ChangeOperation operation) {
+        lockUser(userId);
+        ExpenseChange change = new ExpenseChange();
+        change.setUserId(userId);
+        change.setExpenseId(expenseId);
+        change.setOperation(operation);
+        change.setChangedAt(Instant.now());
+        return change;
+    }
+}
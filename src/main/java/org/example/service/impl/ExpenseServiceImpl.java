@@ -1,168 +1,301 @@
 package org.example.service.impl;
 
+import org.example.dto.BatchOperationDTO;
+import org.example.dto.BatchResultDTO;
+import org.example.dto.CategoryTotalDTO;
+import org.example.dto.ExpenseDTO;
 import org.example.model.AppUser;
 import org.example.model.Expense;
 import org.example.repository.ExpenseRepository;
+import org.example.service.ExpenseArchiveService;
+import org.example.service.ExpenseChangeService;
 import org.example.service.ExpenseService;
 import org.example.service.UserService;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ExpenseServiceImpl implements ExpenseService {
 
     private final ExpenseRepository expenseRepository;
     private final UserService userService;
+    private final ExpenseChangeService expenseChangeService;
+    private final ExpenseArchiveService expenseArchiveService;
+    private final CategorySuggestionIndex categorySuggestionIndex;
+    private final ExpenseWriteBuffer expenseWriteBuffer;
+    private final TransactionTemplate transactionTemplate;
 
-    public ExpenseServiceImpl(ExpenseRepository expenseRepository, UserService userService) {
+    public ExpenseServiceImpl(ExpenseRepository expenseRepository,
+                              UserService userService,
+                              ExpenseChangeService expenseChangeService,
+                              ExpenseArchiveService expenseArchiveService,
+                              CategorySuggestionIndex categorySuggestionIndex,
+                              ExpenseWriteBuffer expenseWriteBuffer,
+                              TransactionTemplate transactionTemplate) {
         this.expenseRepository = expenseRepository;
         this.userService = userService;
+        this.expenseChangeService = expenseChangeService;
+        this.expenseArchiveService = expenseArchiveService;
+        this.categorySuggestionIndex = categorySuggestionIndex;
+        this.expenseWriteBuffer = expenseWriteBuffer;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
-    public List<Expense> getAllUserExpenses(Long userId) {
-        return new ArrayList<>(expenseRepository
-                .findByUserIdOrderByDateDesc(userId));
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getAllUserExpenses(Long userId) {
+        return merge(expenseRepository.findDtoByUserId(userId),
+                expenseArchiveService.getAllUserExpenses(userId));
     }
 
     @Override
-    public List<Expense> getExpenseByDay(String date, Long userId) {
-        return expenseRepository.findByUserIdOrderByDateDesc(userId)
-                .stream()
-                .filter(expense -> expense.getDate().equals(date))
-                .toList();
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getExpenseByDay(String date, Long userId) {
+        return merge(expenseRepository.findDtoByUserIdAndDate(userId, date),
+                expenseArchiveService.getExpenseByDay(date, userId));
     }
 
     @Override
-    public List<Expense> getExpenseByCategoryAndMonth(String category, String month, Long userId) {
-        return expenseRepository.findByUserIdOrderByDateDesc(userId)
-                .stream()
-                .filter(expense -> expense.getCategory().equalsIgnoreCase(category)
-                        && expense.getDate().startsWith(month))
-                .toList();
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId) {
+        return merge(expenseRepository.findDtoByUserIdAndCategoryAndMonth(userId, category, month),
+                expenseArchiveService.getExpenseByCategoryAndMonth(category, month, userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<String> getAllExpenseCategories(Long userId) {
-        return expenseRepository.findByUserIdOrderByDateDesc(userId)
-                .stream()
-                .map(Expense::getCategory)
+        return Stream.concat(expenseRepository.findCategoriesByUserId(userId).stream(),
+                        expenseArchiveService.getAllExpenseCategories(userId).stream())
                 .distinct()
                 .toList();
     }
 
     @Override
-    public Optional<Expense> getExpenseById(Long id, Long userId) {
-        return expenseRepository.findByIdAndUserId(id, userId);
+    @Transactional(readOnly = true)
+    public List<CategoryTotalDTO> getCategoryTotalsByMonth(String month, Long userId) {
+        List<CategoryTotalDTO> totals = expenseRepository.findCategoryTotalsByUserIdAndMonth(userId, month);
+        // A month straddling the cutoff has rows on both sides
+        Map<TotalKey, Double> merged = new LinkedHashMap<>();
+        Stream.concat(totals.stream(), expenseArchiveService.getCategoryTotalsByMonth(month, userId).stream())
+                .forEach(total -> merged.merge(new TotalKey(total.category(), total.expenseType()),
+                        total.total(), Double::sum));
+        return merged.entrySet().stream()
+                .map(entry -> new CategoryTotalDTO(entry.getKey().category(), entry.getKey().expenseType(), entry.getValue()))
+                .toList();
+    }
+
+    // Archived rows are older than anything recent, so only the hot table is read
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExpenseDTO> getRecentExpenses(int limit, Long userId) {
+        return expenseRepository.findRecentDtoByUserId(userId, PageRequest.of(0, limit));
     }
 
+    // Only the first call for a user reads the database
+    @Override
+    public List<String> suggestCategories(String prefix, int limit, Long userId) {
+        return categorySuggestionIndex.suggest(userId, prefix, limit, () -> Stream.concat(
+                expenseRepository.findCategoriesByUserId(userId).stream(),
+                expenseArchiveService.getAllExpenseCategories(userId).stream()).toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ExpenseDTO> getExpenseById(Long id, Long userId) {
+        return expenseRepository.findDtoByIdAndUserId(id, userId)
+                .or(() -> expenseArchiveService.getExpenseById(id, userId));
+    }
+
+    // No transaction here: with the write buffer enabled the insert commits together with other
+    // callers' inserts, otherwise it gets its own (or joins the caller's)
     @Override
     public Expense addExpense(Expense expense, Long userId) {
+        if (expenseWriteBuffer.isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return expenseWriteBuffer.submit(() -> insertExpense(expense, userId));
+        }
+        return transactionTemplate.execute(status -> insertExpense(expense, userId));
+    }
+
+    // Must run inside a transaction. Safe to retry, the id is always generated.
+    private Expense insertExpense(Expense expense, Long userId) {
+        expenseChangeService.lockUser(userId);
+        expense.setId(null);
         Optional<AppUser> user = userService.findUserById(userId);
         if (user.isPresent()) {
             AppUser updateUser = user.get();
             expense.setUser(updateUser);
-            return expenseRepository.save(expense);
+            Expense savedExpense = expenseRepository.save(expense);
+            expenseChangeService.recordUpsert(savedExpense, userId);
+            categorySuggestionIndex.record(userId, null, savedExpense.getCategory());
+            return savedExpense;
         } else {
             throw new RuntimeException("User not found");
         }
     }
 
     @Override
+    @Transactional
     public boolean updateExpense(Expense expense, Long userId) {
-        Optional<Expense> existingExpense = expenseRepository
-                .findByIdAndUserId(expense.getId(), userId);
+        expenseChangeService.lockUser(userId);
+        Optional<Expense> existingExpense = findOwnedExpense(expense.getId(), userId);
         if (existingExpense.isPresent()) {
-            expense.setUser(existingExpense.get().getUser());
-            expenseRepository.save(expense);
+            // Update the managed entity, dirty checking writes it on commit
+            Expense managedExpense = existingExpense.get();
+            String previousCategory = managedExpense.getCategory();
+            copyFields(expense, managedExpense);
+            expenseChangeService.recordUpsert(managedExpense, userId);
+            categorySuggestionIndex.record(userId, previousCategory, managedExpense.getCategory());
             return true;
         }
         return false;
     }
 
     @Override
+    @Transactional
     public boolean deleteExpense(Long id, Long userId) {
-        Optional<Expense> existingExpense = expenseRepository
-                .findByIdAndUserId(id, userId);
+        expenseChangeService.lockUser(userId);
+        Optional<Expense> existingExpense = findOwnedExpense(id, userId);
         if (existingExpense.isPresent()) {
-            expenseRepository.deleteById(id);
+            expenseRepository.delete(existingExpense.get());
+            expenseChangeService.recordDelete(id, userId);
+            categorySuggestionIndex.record(userId, existingExpense.get().getCategory(), null);
             return true;
         }
         return false;
     }
 
+    // Archived expenses are moved back to the expense table before they are changed,
+    // the next archive run moves them out again if they are still old enough
+    private Optional<Expense> findOwnedExpense(Long id, Long userId) {
+        Optional<Expense> expense = expenseRepository.findByIdAndUserId(id, userId);
+        if (expense.isEmpty() && expenseArchiveService.restore(id, userId)) {
+            return expenseRepository.findByIdAndUserId(id, userId);
+        }
+        return expense;
+    }
 
-    // Get data from json file
-    /*
-    private static final AtomicLong idCounter = new AtomicLong();
 
     @Override
-    public List<Expense> getExpenseByDay(String date) {
-        return ExpenseDataLoader
-                .getExpenses()
-                .stream()
-                .filter(expense -> expense.getDate().equalsIgnoreCase(date))
-                .toList();
-    }
+    @Transactional
+    public List<BatchResultDTO> applyBatch(List<BatchOperationDTO> operations, Long userId) {
+        expenseChangeService.lockUser(userId);
+        AppUser user = userService.findUserById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
-    @Override
-    public List<Expense> getExpenseByCategoryAndMonth(String category, String month) {
-        return ExpenseDataLoader
-                .getExpenses()
-                .stream()
-                .filter(expense -> expense.getCategory().equalsIgnoreCase(category) &&
-                        expense.getDate().startsWith(month))
+        // Resolve ownership of every referenced expense with a single query
+        Set<Long> ids = operations.stream()
+                .filter(operation -> operation.type() != BatchOperationDTO.Type.CREATE && operation.id() != null)
+                .map(BatchOperationDTO::id)
+                .collect(Collectors.toSet());
+        Map<Long, Expense> ownedExpenses = ids.isEmpty()
+                ? new HashMap<>()
+                : expenseRepository.findByUserIdAndIdIn(userId, ids)
+                        .stream()
+                        .collect(Collectors.toMap(Expense::getId, Function.identity()));
+        List<Long> archivedIds = ids.stream()
+                .filter(id -> !ownedExpenses.containsKey(id) && expenseArchiveService.restore(id, userId))
                 .toList();
-    }
+        if (!archivedIds.isEmpty()) {
+            expenseRepository.findByUserIdAndIdIn(userId, archivedIds)
+                    .forEach(expense -> ownedExpenses.put(expense.getId(), expense));
+        }
 
-    @Override
-    public List<String> getAllExpenseCategories() {
-        return ExpenseDataLoader
-                .getExpenses()
-                .stream()
-                .map(Expense::getCategory)
-                .distinct()
-                .toList();
+        List<BatchResultDTO> results = new ArrayList<>(operations.size());
+        List<Expense> deletedExpenses = new ArrayList<>();
+        for (int index = 0; index < operations.size(); index++) {
+            BatchOperationDTO operation = operations.get(index);
+            if (operation.type() == null) {
+                results.add(new BatchResultDTO(index, null, operation.id(), 400, "Missing operation type"));
+                continue;
+            }
+            switch (operation.type()) {
+                case CREATE -> {
+                    if (operation.expense() == null) {
+                        results.add(new BatchResultDTO(index, operation.type(), null, 400, "Missing expense"));
+                        continue;
+                    }
+                    Expense expense = operation.expense().toExpense();
+                    expense.setId(null);
+                    expense.setUser(user);
+                    Expense savedExpense = expenseRepository.save(expense);
+                    expenseChangeService.recordUpsert(savedExpense, userId);
+                    categorySuggestionIndex.record(userId, null, savedExpense.getCategory());
+                    results.add(new BatchResultDTO(index, operation.type(), savedExpense.getId(), 201, null));
+                }
+                case UPDATE -> {
+                    Expense managedExpense = ownedExpenses.get(operation.id());
+                    if (managedExpense == null || operation.expense() == null) {
+                        results.add(notFoundOrInvalid(index, operation, managedExpense == null));
+                        continue;
+                    }
+                    String previousCategory = managedExpense.getCategory();
+                    copyFields(operation.expense().toExpense(), managedExpense);
+                    expenseChangeService.recordUpsert(managedExpense, userId);
+                    categorySuggestionIndex.record(userId, previousCategory, managedExpense.getCategory());
+                    results.add(new BatchResultDTO(index, operation.type(), managedExpense.getId(), 200, null));
+                }
+                case DELETE -> {
+                    Expense managedExpense = ownedExpenses.remove(operation.id());
+                    if (managedExpense == null) {
+                        results.add(notFoundOrInvalid(index, operation, true));
+                        continue;
+                    }
+                    deletedExpenses.add(managedExpense);
+                    expenseChangeService.recordDelete(managedExpense.getId(), userId);
+                    categorySuggestionIndex.record(userId, managedExpense.getCategory(), null);
+                    results.add(new BatchResultDTO(index, operation.type(), managedExpense.getId(), 204, null));
+                }
+            }
+        }
+        // Updates and deletes are flushed together as JDBC batches on commit
+        expenseRepository.deleteAll(deletedExpenses);
+        return results;
     }
 
-    @Override
-    public Optional<Expense> getExpenseById(Long id) {
-        return ExpenseDataLoader
-                .getExpenses()
-                .stream()
-                .filter(expense -> expense.getId().equals(id))
-                .findFirst();
+    private BatchResultDTO notFoundOrInvalid(int index, BatchOperationDTO operation, boolean notFound) {
+        return notFound
+                ? new BatchResultDTO(index, operation.type(), operation.id(), 404, "Expense not found")
+                : new BatchResultDTO(index, operation.type(), operation.id(), 400, "Missing expense");
     }
 
-    @Override
-    public Expense addExpense(Expense expense) {
-        expense.setId(idCounter.incrementAndGet());
-        ExpenseDataLoader.getExpenses().add(expense);
-        return expense;
+    // Combines hot and archived rows, newest first like the repository queries
+    private List<ExpenseDTO> merge(List<ExpenseDTO> hot, List<ExpenseDTO> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<ExpenseDTO> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(ExpenseDTO::date, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
     }
 
-    @Override
-    public boolean updateExpense(Expense expense) {
-        Optional<Expense> existingExpense = getExpenseById(expense.getId());
-        if (existingExpense.isPresent()) {
-            ExpenseDataLoader.getExpenses().remove(existingExpense.get());
-            ExpenseDataLoader.getExpenses().add(expense);
-            return true;
-        }
-        return false;
+    private record TotalKey(String category, int expenseType) {
     }
 
-    @Override
-    public boolean deleteExpense(Long id) {
-        Optional<Expense> existingExpense = getExpenseById(id);
-        if (existingExpense.isPresent()) {
-            ExpenseDataLoader.getExpenses().remove(existingExpense.get());
-            return true;
-        }
-        return false;
-    }*/
+    private void copyFields(Expense source, Expense target) {
+        target.setExpenseType(source.getExpenseType());
+        target.setDate(source.getDate());
+        target.setAmount(source.getAmount());
+        target.setCategory(source.getCategory());
+        target.setAccount(source.getAccount());
+        target.setNote(source.getNote());
+    }
 }
@@ -0,0 +1,214 @@
+package org.example.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.ReplicaRoutingDataSource;
+import org.example.config.ShardContext;
+import org.example.config.WriteBufferProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Group commit for single inserts. Callers queue their write and wait; one flusher thread runs
+// everything that arrived within max-delay (up to max-batch-size) in a single transaction per shard.
+// If that transaction fails, each write is retried in its own so only the failing caller sees the error.
+// Each write runs under its caller's security context, so replica routing keeps every caller on the primary.
+@Slf4j
+@Component
+public class ExpenseWriteBuffer {
+    private final WriteBufferProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public ExpenseWriteBuffer(WriteBufferProperties properties,
+                              TransactionTemplate transactionTemplate,
+                              ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.routingDataSource = routingDataSource.getIfAvailable();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        if (properties.isEnabled()) {
+            this.flusher = new Thread(this::flushLoop, "expense-write-buffer");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return flusher != null;
+    }
+
+    // Runs the write in a shared transaction on the caller's shard and returns its result.
+    // A write the flusher has not picked up by flush-timeout is dropped and the call fails, so a retry
+    // cannot duplicate it. Once picked up, the caller waits for the outcome of that transaction.
+    public <T> T submit(Supplier<T> write) {
+        PendingWrite<T> pending = new PendingWrite<>(write, ShardContext.current(),
+                SecurityContextHolder.getContext(), new CompletableFuture<>(), new AtomicBoolean());
+        long timeoutNanos = properties.getFlushTimeout().toNanos();
+        long start = System.nanoTime();
+        try {
+            if (!queue.offer(pending, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Write buffer is full");
+            }
+            return pending.result().get(timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (pending.abandon()) {
+                throw new IllegalStateException("Timed out waiting for the write to commit", e);
+            }
+            return awaitOutcome(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.abandon()) {
+                throw new IllegalStateException("Interrupted waiting for the write to commit", e);
+            }
+            return awaitOutcome(pending);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static <T> T awaitOutcome(PendingWrite<T> pending) {
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher != null) {
+            running = false;
+            flusher.join(properties.getFlushTimeout().toMillis());
+        }
+    }
+
+    private void flushLoop() {
+        long maxDelayNanos = properties.getMaxDelay().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingWrite<?>> batch = new ArrayList<>(properties.getMaxBatchSize());
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write buffer flush failed", e);
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite<?>> batch) {
+        Map<Integer, List<PendingWrite<?>>> byShard = batch.stream()
+                .filter(PendingWrite::claim) // Skips callers that already gave up
+                .collect(Collectors.groupingBy(PendingWrite::shard));
+        try {
+            byShard.forEach((shard, writes) -> ShardContext.call(shard, () -> {
+                flushShard(writes);
+                return null;
+            }));
+        } finally {
+            // Claimed callers wait without a timeout, never leave one hanging
+            byShard.values().stream()
+                    .flatMap(List::stream)
+                    .forEach(pending -> pending.result().completeExceptionally(
+                            new IllegalStateException("Write buffer flush failed")));
+        }
+    }
+
+    private void flushShard(List<PendingWrite<?>> writes) {
+        try {
+            List<Object> results = transactionTemplate.execute(status ->
+                    writes.stream().<Object>map(this::run).toList());
+            for (int i = 0; i < writes.size(); i++) {
+                writes.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (writes.size() == 1) {
+                writes.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.debug("Group commit of {} writes failed, retrying one by one", writes.size(), e);
+            for (PendingWrite<?> pending : writes) {
+                try {
+                    pending.complete(transactionTemplate.execute(status -> run(pending)));
+                } catch (RuntimeException single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private <T> T run(PendingWrite<T> pending) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(pending.securityContext());
+        try {
+            T result = pending.write().get();
+            if (routingDataSource != null) {
+                routingDataSource.recordWrite();
+            }
+            return result;
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private record PendingWrite<T>(Supplier<T> write, int shard, SecurityContext securityContext,
+                                   CompletableFuture<T> result, AtomicBoolean claimed) {
+        // The flusher and a timed out caller race on this, exactly one of them wins
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        boolean abandon() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.service.impl;
+
+import org.example.dto.ExpenseDTO;
+import org.example.repository.ExpenseReactiveRepository;
+import org.example.service.ReactiveExpenseService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveExpenseServiceImpl implements ReactiveExpenseService {
+
+    private final ExpenseReactiveRepository expenseReactiveRepository;
+
+    public ReactiveExpenseServiceImpl(ExpenseReactiveRepository expenseReactiveRepository) {
+        this.expenseReactiveRepository = expenseReactiveRepository;
+    }
+
+    @Override
+    public Flux<ExpenseDTO> getAllUserExpenses(Long userId) {
+        return expenseReactiveRepository.findByUserId(userId);
+    }
+
+    @Override
+    public Flux<ExpenseDTO> getExpenseByDay(String date, Long userId) {
+        return expenseReactiveRepository.findByUserIdAndDate(userId, date);
+    }
+
+    @Override
+    public Flux<ExpenseDTO> getExpenseByCategoryAndMonth(String category, String month, Long userId) {
+        return expenseReactiveRepository.findByUserIdAndCategoryAndMonth(userId, category, month);
+    }
+
+    @Override
+    public Flux<String> getAllExpenseCategories(Long userId) {
+        return expenseReactiveRepository.findCategoriesByUserId(userId)
+                .distinct();
+    }
+
+    @Override
+    public Mono<ExpenseDTO> getExpenseById(Long id, Long userId) {
+        return expenseReactiveRepository.findByIdAndUserId(id, userId);
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.service.impl;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.ShardDataSources;
+import org.example.config.ShardRouter;
+import org.example.model.AppUser;
+import org.example.service.ShardService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Moves users between shards with plain JDBC on the raw shard pools. Rows keep their ids,
+// which are unique across shards. The user's change log is not copied: clients holding a
+// cursor from the old shard are told to resync.
+// A move first marks the user as moving in the directory, which makes every node refuse their
+// new writes. Writes already in flight hold the user's row lock (see ExpenseChangeService.lockUser)
+// until they commit; the move takes the same lock on the source before reading and keeps it until
+// the source rows are deleted, so no write can commit to the source after the copy. Nodes that still
+// route reads to the old shard find no user there once the rows are gone and look the user up again.
+@Slf4j
+@Service
+public class ShardServiceImpl implements ShardService {
+    private static final List<String> USER_TABLES = List.of("expense_change", "expense_archive", "expense");
+    private static final String EXPENSE_COLUMNS = "id, user_id, expense_type, date, amount, category, account, note";
+
+    private final ShardRouter shardRouter;
+    private final ShardDataSources shardDataSources;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ShardServiceImpl(ShardRouter shardRouter,
+                            ObjectProvider<ShardDataSources> shardDataSources,
+                            EntityManagerFactory entityManagerFactory) {
+        this.shardRouter = shardRouter;
+        this.shardDataSources = shardDataSources.getIfAvailable();
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return shardDataSources != null;
+    }
+
+    @Override
+    public Map<Integer, Long> getUserCounts() {
+        return shardRouter.userCountsByShard();
+    }
+
+    @Override
+    public boolean moveUser(String username, int targetShard) {
+        if (!isEnabled() || targetShard < 0 || targetShard >= shardRouter.shardCount()) {
+            throw new IllegalArgumentException("Unknown shard " + targetShard);
+        }
+        int sourceShard = shardRouter.shardForWrite(username);
+        if (sourceShard == targetShard) {
+            return false;
+        }
+        if (!shardRouter.beginMove(username, sourceShard)) {
+            throw new IllegalArgumentException("User not found or already being moved: " + username);
+        }
+        Long movedUserId = null;
+        try {
+            movedUserId = copyUser(username, sourceShard, targetShard);
+        } finally {
+            // Lifts the fence, on failure the user stays where they were
+            shardRouter.finishMove(username, movedUserId != null ? targetShard : sourceShard);
+        }
+        evictCaches(movedUserId);
+        return true;
+    }
+
+    // The rows were moved with JDBC behind Hibernate's back, this drops the user this node still caches.
+    // Other nodes keep theirs until it expires, which is harmless: writes lock the row and find it gone.
+    private void evictCaches(Long userId) {
+        entityManagerFactory.getCache().evict(AppUser.class, userId);
+    }
+
+    // One source transaction holds the user's row lock from the first read until the source rows
+    // are deleted. The target is written and committed in between, in its own transaction.
+    private Long copyUser(String username, int sourceShard, int targetShard) {
+        return inTransaction(sourceShard, source -> {
+            List<Map<String, Object>> users = source.queryForList(
+                    "select * from app_user where lower(username) = ? for update", username.toLowerCase(Locale.ROOT));
+            if (users.isEmpty()) {
+                throw new IllegalArgumentException("User not found: " + username);
+            }
+            Map<String, Object> user = users.get(0);
+            Object userId = user.get("id");
+            user.put("change_horizon", null);
+            // One statement reads both tables, so a row the archive job moves meanwhile is seen exactly once
+            List<Map<String, Object>> expenses = new ArrayList<>();
+            List<Map<String, Object>> archived = new ArrayList<>();
+            source.queryForList("select " + EXPENSE_COLUMNS + ", 0 as archived from expense where user_id = ? " +
+                            "union all select " + EXPENSE_COLUMNS + ", 1 as archived from expense_archive where user_id = ?",
+                    userId, userId).forEach(row -> {
+                boolean isArchived = ((Number) row.remove("archived")).intValue() == 1;
+                (isArchived ? archived : expenses).add(row);
+            });
+
+            // Target first: clearing leftovers makes a retried move idempotent
+            inTransaction(targetShard, target -> {
+                deleteUserRows(target, userId);
+                insertRows(target, "app_user", List.of(user));
+                insertRows(target, "expense", expenses);
+                insertRows(target, "expense_archive", archived);
+                return null;
+            });
+            // Writes waiting for the lock find no user once this commits and fail instead of landing here
+            deleteUserRows(source, userId);
+
+            log.info("Moved user {} with {} expenses from shard {} to shard {}",
+                    userId, expenses.size() + archived.size(), sourceShard, targetShard);
+            return ((Number) userId).longValue();
+        });
+    }
+
+    // Moves users from the fullest to the emptiest shard until user counts differ by at most one
+    @Override
+    public int rebalance(int maxMoves) {
+        Map<Integer, Long> counts = getUserCounts();
+        int moves = 0;
+        while (moves < maxMoves) {
+            int fullest = counts.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+            int emptiest = counts.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow().getKey();
+            if (counts.get(fullest) - counts.get(emptiest) <= 1) {
+                break;
+            }
+            List<String> candidates = shardRouter.usernamesOnShard(fullest, 1);
+            if (candidates.isEmpty() || !moveUser(candidates.get(0), emptiest)) {
+                break;
+            }
+            counts.merge(fullest, -1L, Long::sum);
+            counts.merge(emptiest, 1L, Long::sum);
+            moves++;
+        }
+        return moves;
+    }
+
+    private DataSource dataSource(int shard) {
+        return shardDataSources.shards().get(shard);
+    }
+
+    private <T> T inTransaction(int shard, Function<JdbcTemplate, T> work) {
+        DataSource dataSource = dataSource(shard);
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .execute(status -> work.apply(new JdbcTemplate(dataSource)));
+    }
+
+    private void deleteUserRows(JdbcTemplate jdbcTemplate, Object userId) {
+        for (String table : USER_TABLES) {
+            jdbcTemplate.update("delete from " + table + " where user_id = ?", userId);
+        }
+        jdbcTemplate.update("delete from app_user where id = ?", userId);
+    }
+
+    private void insertRows(JdbcTemplate jdbcTemplate, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values (" +
+                columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        List<Object[]> values = rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList();
+        jdbcTemplate.batchUpdate(sql, values);
+    }
+}
@@ -0,0 +1,413 @@
+package org.example.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.ShardDataSources;
+import org.example.service.SnapshotService;
+import org.example.utils.SnapshotFormat;
+import org.example.utils.SnapshotFormat.Column;
+import org.example.utils.SnapshotFormat.ColumnType;
+import org.example.utils.SnapshotFormat.RowGroup;
+import org.example.utils.SnapshotFormat.Table;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+// Whole-dataset snapshot in the SnapshotFormat file layout, using plain JDBC like ShardServiceImpl.
+// Export streams every table with a server-side cursor, reading all tables of a database in one
+// REPEATABLE READ transaction so the file never has an expense without its user, or a row both in
+// expense and expense_archive. With sharding enabled all shards go into the same file, which is
+// safe because ids are unique across shards. Restore targets a single
+// unsharded database and is refused when sharding is enabled, since it would neither place users on
+// their shards nor keep each shard's id block. Parents are loaded before children so foreign keys
+// hold without deferral, and secondary indexes are dropped during the load and rebuilt once at the end.
+@Slf4j
+@Service
+public class SnapshotServiceImpl implements SnapshotService {
+    // Parents first. The change log is a sync feed, not data, and is left out.
+    private static final List<String> TABLES = List.of("app_user", "expense", "expense_archive");
+    private static final Map<String, String> SECONDARY_INDEXES = Map.of(
+            "idx_expense_user_date", "create index if not exists idx_expense_user_date on expense (user_id, date)",
+            "idx_expense_archive_user_date",
+            "create index if not exists idx_expense_archive_user_date on expense_archive (user_id, date)");
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INSERT_BATCH_SIZE = 1_000;
+
+    private final DataSource dataSource;
+    private final ShardDataSources shardDataSources;
+    private final int restoreThreads;
+
+    public SnapshotServiceImpl(DataSource dataSource,
+                               ObjectProvider<ShardDataSources> shardDataSources,
+                               @Value("${snapshot.restore-threads:0}") int restoreThreads) {
+        this.dataSource = dataSource;
+        this.shardDataSources = shardDataSources.getIfAvailable();
+        this.restoreThreads = restoreThreads > 0 ? restoreThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public long export(Path file) throws IOException {
+        List<DataSource> sources = shardDataSources != null ? shardDataSources.shards() : List.of(dataSource);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            SnapshotWriter writer = new SnapshotWriter(out);
+            Map<String, List<Column>> columns = new HashMap<>();
+            Map<String, List<RowGroup>> rowGroups = new HashMap<>();
+            TABLES.forEach(table -> rowGroups.put(table, new ArrayList<>()));
+            for (DataSource source : sources) {
+                exportSource(source, writer, columns, rowGroups);
+            }
+            List<Table> tables = new ArrayList<>();
+            long rows = 0;
+            for (String table : TABLES) {
+                tables.add(new Table(table, columns.get(table), rowGroups.get(table)));
+                rows += rowGroups.get(table).stream().mapToLong(RowGroup::rowCount).sum();
+            }
+            writer.finish(tables);
+            out.flush();
+            log.info("Exported {} rows to {} ({} bytes)", rows, file, channel.size());
+            return rows;
+        }
+    }
+
+    @Override
+    public long restore(Path file, boolean replace) throws IOException {
+        if (shardDataSources != null) {
+            throw new IllegalStateException("Snapshot restore is not supported with sharding enabled, "
+                    + "restore into an unsharded database and move users with the shard admin endpoints");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Table> tables = readFooter(channel);
+            prepareTarget(replace);
+
+            ExecutorService executor = Executors.newFixedThreadPool(restoreThreads);
+            long rows = 0;
+            boolean restored = false;
+            try {
+                // Users have to be in place before any expense refers to them; the rest can go at once
+                rows += restoreTables(channel, tables.subList(0, 1), executor);
+                rows += restoreTables(channel, tables.subList(1, tables.size()), executor);
+                restored = true;
+            } finally {
+                executor.shutdownNow();
+                // Expense queries rely on these, a failed restore must not leave them dropped
+                rebuildIndexes();
+                if (!restored) {
+                    log.error("Restore from {} failed and left the tables partly loaded, rerun it with --snapshot.replace", file);
+                }
+            }
+
+            restartIdentities();
+            log.info("Restored {} rows from {}", rows, file);
+            return rows;
+        }
+    }
+
+    // One read-only transaction per database, Postgres also only streams with a cursor inside one
+    private void exportSource(DataSource source, SnapshotWriter writer,
+                              Map<String, List<Column>> columns, Map<String, List<RowGroup>> rowGroups)
+            throws IOException {
+        try (Connection connection = source.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                for (String table : TABLES) {
+                    columns.put(table, exportTable(connection, table, writer, rowGroups.get(table)));
+                }
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not export snapshot", e);
+        }
+    }
+
+    private List<Column> exportTable(Connection connection, String table, SnapshotWriter writer, List<RowGroup> rowGroups)
+            throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery("select * from " + table + " order by id")) {
+                List<Column> columns = columns(resultSet.getMetaData());
+                List<Object[]> buffer = new ArrayList<>(SnapshotFormat.ROWS_PER_GROUP);
+                while (resultSet.next()) {
+                    buffer.add(readRow(resultSet, columns));
+                    if (buffer.size() == SnapshotFormat.ROWS_PER_GROUP) {
+                        rowGroups.add(writer.writeRowGroup(buffer, columns));
+                        buffer.clear();
+                    }
+                }
+                if (!buffer.isEmpty()) {
+                    rowGroups.add(writer.writeRowGroup(buffer, columns));
+                }
+                return columns;
+            }
+        }
+    }
+
+    private long restoreTables(FileChannel channel, List<Table> tables, ExecutorService executor) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (Table table : tables) {
+            String sql = "insert into " + table.name() + " (" +
+                    table.columns().stream().map(Column::name).collect(Collectors.joining(", ")) + ") values (" +
+                    table.columns().stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            for (RowGroup rowGroup : table.rowGroups()) {
+                futures.add(executor.submit(() -> restoreRowGroup(channel, table, rowGroup, sql)));
+            }
+        }
+        long rows = 0;
+        try {
+            for (Future<Integer> future : futures) {
+                rows += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Restore interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Restore failed", e.getCause());
+        }
+        return rows;
+    }
+
+    // Each row group is its own transaction on its own connection
+    private int restoreRowGroup(FileChannel channel, Table table, RowGroup rowGroup, String sql)
+            throws IOException, SQLException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, rowGroup.offset(), rowGroup.length());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != rowGroup.crc()) {
+            throw new IOException("Checksum mismatch in " + table.name() + " at offset " + rowGroup.offset());
+        }
+        Object[][] rows = SnapshotFormat.decodeRowGroup(buffer, table.columns(), rowGroup.rowCount());
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < rows.length; i++) {
+                bindRow(statement, rows[i], table.columns());
+                statement.addBatch();
+                if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return rows.length;
+    }
+
+    private void prepareTarget(boolean replace) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String table : TABLES) {
+            Long count = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+            if (count != null && count > 0 && !replace) {
+                throw new IllegalStateException("Table " + table + " is not empty, restore with replace to overwrite it");
+            }
+        }
+        if (replace) {
+            jdbcTemplate.update("delete from expense_change");
+            for (int i = TABLES.size() - 1; i >= 0; i--) {
+                jdbcTemplate.update("delete from " + TABLES.get(i));
+            }
+        }
+        SECONDARY_INDEXES.keySet().forEach(index -> jdbcTemplate.execute("drop index if exists " + index));
+    }
+
+    private void rebuildIndexes() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        SECONDARY_INDEXES.values().forEach(jdbcTemplate::execute);
+    }
+
+    private void restartIdentities() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // Restored rows keep their ids, so new rows have to start above them
+        for (String table : List.of("app_user", "expense")) {
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+            if (maxId != null) {
+                jdbcTemplate.execute("alter table " + table + " alter column id restart with " + (maxId + 1));
+            }
+        }
+    }
+
+    private List<Table> readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int magicLength = SnapshotFormat.MAGIC.length;
+        if (size < 2L * magicLength + Long.BYTES) {
+            throw new IOException("Not a snapshot file");
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, magicLength);
+        ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - Long.BYTES - magicLength, Long.BYTES + magicLength);
+        long footerOffset = trailer.getLong();
+        if (!hasMagic(header) || !hasMagic(trailer) || footerOffset < magicLength || footerOffset > size) {
+            throw new IOException("Not a snapshot file");
+        }
+
+        ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - Long.BYTES - magicLength - footerOffset);
+        int tableCount = footer.getInt();
+        List<Table> tables = new ArrayList<>(tableCount);
+        for (int t = 0; t < tableCount; t++) {
+            String name = readString(footer);
+            if (!TABLES.contains(name)) {
+                throw new IOException("Unknown table in snapshot: " + name);
+            }
+            int columnCount = footer.getInt();
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                columns.add(new Column(readString(footer), ColumnType.values()[footer.get()]));
+            }
+            int rowGroupCount = footer.getInt();
+            List<RowGroup> rowGroups = new ArrayList<>(rowGroupCount);
+            for (int g = 0; g < rowGroupCount; g++) {
+                rowGroups.add(new RowGroup(footer.getLong(), footer.getInt(), footer.getInt(), footer.getLong()));
+            }
+            tables.add(new Table(name, columns, rowGroups));
+        }
+        return tables;
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer) {
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        buffer.get(magic);
+        return Arrays.equals(magic, SnapshotFormat.MAGIC);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Column> columns(ResultSetMetaData metaData) throws SQLException {
+        List<Column> columns = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(new Column(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT),
+                    ColumnType.fromSqlType(metaData.getColumnType(i))));
+        }
+        return columns;
+    }
+
+    private static Object[] readRow(ResultSet resultSet, List<Column> columns) throws SQLException {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            int index = i + 1;
+            Object value = switch (columns.get(i).type()) {
+                case LONG -> resultSet.getLong(index);
+                case INT -> resultSet.getInt(index);
+                case DOUBLE -> resultSet.getDouble(index);
+                case STRING -> resultSet.getString(index);
+                case TIMESTAMP -> {
+                    OffsetDateTime timestamp = resultSet.getObject(index, OffsetDateTime.class);
+                    yield timestamp == null ? null : toMicros(timestamp.toInstant());
+                }
+            };
+            row[i] = resultSet.wasNull() ? null : value;
+        }
+        return row;
+    }
+
+    private static void bindRow(PreparedStatement statement, Object[] row, List<Column> columns) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            int index = i + 1;
+            ColumnType type = columns.get(i).type();
+            if (row[i] == null) {
+                statement.setNull(index, type.sqlType());
+                continue;
+            }
+            switch (type) {
+                case LONG -> statement.setLong(index, (Long) row[i]);
+                case INT -> statement.setInt(index, (Integer) row[i]);
+                case DOUBLE -> statement.setDouble(index, (Double) row[i]);
+                case STRING -> statement.setString(index, (String) row[i]);
+                case TIMESTAMP -> statement.setObject(index, fromMicros((Long) row[i]));
+            }
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static OffsetDateTime fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L)
+                .atOffset(ZoneOffset.UTC);
+    }
+
+    // Appends row groups and remembers where each one landed
+    private static final class SnapshotWriter {
+        private final DataOutputStream out;
+        private long position;
+
+        SnapshotWriter(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.write(SnapshotFormat.MAGIC);
+            this.position = SnapshotFormat.MAGIC.length;
+        }
+
+        RowGroup writeRowGroup(List<Object[]> rows, List<Column> columns) throws IOException {
+            byte[] bytes = SnapshotFormat.encodeRowGroup(rows, columns);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            out.write(bytes);
+            RowGroup rowGroup = new RowGroup(position, bytes.length, rows.size(), crc.getValue());
+            position += bytes.length;
+            return rowGroup;
+        }
+
+        void finish(List<Table> tables) throws IOException {
+            long footerOffset = position;
+            out.writeInt(tables.size());
+            for (Table table : tables) {
+                out.writeUTF(table.name());
+                out.writeInt(table.columns().size());
+                for (Column column : table.columns()) {
+                    out.writeUTF(column.name());
+                    out.writeByte(column.type().ordinal());
+                }
+                out.writeInt(table.rowGroups().size());
+                for (RowGroup rowGroup : table.rowGroups()) {
+                    out.writeLong(rowGroup.offset());
+                    out.writeInt(rowGroup.length());
+                    out.writeInt(rowGroup.rowCount());
+                    out.writeLong(rowGroup.crc());
+                }
+            }
+            out.writeLong(footerOffset);
+            out.write(SnapshotFormat.MAGIC);
+        }
+    }
+}
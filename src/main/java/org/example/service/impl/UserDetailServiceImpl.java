@@ -1,14 +1,17 @@
 package org.example.service.impl;
 
+import org.example.config.ShardContext;
+import org.example.config.ShardRouter;
 import org.example.model.AppUser;
 import org.example.repository.UserRepository;
+import org.example.security.AppUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,12 +22,20 @@ public class UserDetailServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<AppUser> appUser = userRepository.findAll()
-                .stream()
-                .filter(user -> user.getUsername().equalsIgnoreCase(username))
-                .findFirst();
+        Optional<AppUser> appUser = findUser(username);
+        if (appUser.isEmpty() && shardRouter.isEnabled()) {
+            // The cached shard may be stale after a move, ask the directory again
+            shardRouter.evict(username);
+            appUser = findUser(username);
+        }
         if (appUser.isEmpty()) {
             throw new UsernameNotFoundException("User not found");
         }
@@ -32,8 +43,17 @@ public class UserDetailServiceImpl implements UserDetailsService {
         SimpleGrantedAuthority authority =
                 new SimpleGrantedAuthority("ROLE_" + appUser.get().getRole().name());
 
-        return new User(appUser.get().getUsername(),
+        return new AppUserDetails(appUser.get().getId(),
+                appUser.get().getUsername(),
                 appUser.get().getPassword(),
                 Collections.singleton(authority));
     }
+
+    // Runs before ShardContextFilter, so the shard is resolved here. The lookup is not a read-only
+    // transaction, so replica routing sends it to the primary: a replica may not have a user who
+    // just signed up, and the anonymous signup records no read-your-writes stickiness.
+    private Optional<AppUser> findUser(String username) {
+        return ShardContext.call(shardRouter.shardFor(username),
+                () -> transactionTemplate.execute(status -> userRepository.findFirstByUsernameIgnoreCase(username)));
+    }
 }
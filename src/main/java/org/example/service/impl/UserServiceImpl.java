@@ -4,6 +4,7 @@ import org.example.model.AppUser;
 import org.example.repository.UserRepository;
 import org.example.service.UserService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -20,13 +21,13 @@ public class UserServiceImpl implements UserService {
         return userRepository.save(user);
     }
 
+    // Read-write on purpose, replica routing sends it to the primary. Controllers resolve the caller
+    // with it, and a replica may not have the user yet right after signup.
     @Override
+    @Transactional
     public AppUser findByUsername(String username) {
         return userRepository
-                .findAll().stream()
-                .filter(user ->
-                        user.getUsername().equalsIgnoreCase(username))
-                .findFirst()
+                .findFirstByUsernameIgnoreCase(username)
                 .orElse(null);
     }
 
@@ -2,6 +2,9 @@ package org.example.utils;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
@@ -11,7 +14,15 @@ import java.util.Map;
 
 @Component
 public class JwtUtil {
-    private final SecretKey SECRET_KEY = Jwts.SIG.HS256.key().build();
+    private final SecretKey SECRET_KEY;
+
+    // A shared base64 secret lets tokens issued by one node validate on the others,
+    // without it every instance signs with its own random key
+    public JwtUtil(@Value("${jwt.secret:}") String secret) {
+        this.SECRET_KEY = secret.isBlank()
+                ? Jwts.SIG.HS256.key().build()
+                : Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
 
     // Method to generate a JWT token
     public String generateToken(String username) {
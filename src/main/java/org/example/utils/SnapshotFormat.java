@@ -0,0 +1,213 @@
+package org.example.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Column-oriented snapshot file:
+//   magic | row group ... | footer | footer offset (long) | magic
+// A row group stores each column as a null bitmap followed by its non-null values:
+// longs and timestamps as zigzag varint deltas, ints as zigzag varints, doubles raw,
+// strings as a per-group dictionary plus varint indexes. The footer lists every table
+// with its columns and the offset, length, row count and CRC32 of each row group.
+public final class SnapshotFormat {
+    public static final byte[] MAGIC = "ETSNAP01".getBytes(StandardCharsets.US_ASCII);
+    public static final int ROWS_PER_GROUP = 65_536;
+
+    private SnapshotFormat() {
+    }
+
+    public enum ColumnType {
+        LONG,
+        INT,
+        DOUBLE,
+        STRING,
+        TIMESTAMP; // Epoch microseconds, UTC
+
+        public static ColumnType fromSqlType(int sqlType) {
+            return switch (sqlType) {
+                case Types.BIGINT -> LONG;
+                case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> INT;
+                case Types.DOUBLE, Types.FLOAT, Types.REAL, Types.NUMERIC, Types.DECIMAL -> DOUBLE;
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+                default -> STRING;
+            };
+        }
+
+        public int sqlType() {
+            return switch (this) {
+                case LONG -> Types.BIGINT;
+                case INT -> Types.INTEGER;
+                case DOUBLE -> Types.DOUBLE;
+                case STRING -> Types.VARCHAR;
+                case TIMESTAMP -> Types.TIMESTAMP_WITH_TIMEZONE;
+            };
+        }
+    }
+
+    public record Column(String name, ColumnType type) {
+    }
+
+    public record RowGroup(long offset, int length, int rowCount, long crc) {
+    }
+
+    public record Table(String name, List<Column> columns, List<RowGroup> rowGroups) {
+    }
+
+    public static byte[] encodeRowGroup(List<Object[]> rows, List<Column> columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int column = 0; column < columns.size(); column++) {
+            encodeColumn(out, rows, column, columns.get(column).type());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Object[][] decodeRowGroup(ByteBuffer in, List<Column> columns, int rowCount) {
+        Object[][] rows = new Object[rowCount][columns.size()];
+        for (int column = 0; column < columns.size(); column++) {
+            decodeColumn(in, rows, column, columns.get(column).type());
+        }
+        return rows;
+    }
+
+    private static void encodeColumn(DataOutputStream out, List<Object[]> rows, int column, ColumnType type)
+            throws IOException {
+        byte[] nulls = new byte[(rows.size() + 7) / 8];
+        for (int row = 0; row < rows.size(); row++) {
+            if (rows.get(row)[column] == null) {
+                nulls[row >>> 3] |= (byte) (1 << (row & 7));
+            }
+        }
+        out.write(nulls);
+
+        switch (type) {
+            case LONG, TIMESTAMP -> {
+                long previous = 0;
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        long value = ((Number) row[column]).longValue();
+                        writeVarLong(out, zigzag(value - previous));
+                        previous = value;
+                    }
+                }
+            }
+            case INT -> {
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        writeVarLong(out, zigzag(((Number) row[column]).intValue()));
+                    }
+                }
+            }
+            case DOUBLE -> {
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        out.writeDouble(((Number) row[column]).doubleValue());
+                    }
+                }
+            }
+            case STRING -> {
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                List<Integer> indexes = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        indexes.add(dictionary.computeIfAbsent((String) row[column], key -> dictionary.size()));
+                    }
+                }
+                writeVarLong(out, dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, utf8.length);
+                    out.write(utf8);
+                }
+                for (int index : indexes) {
+                    writeVarLong(out, index);
+                }
+            }
+        }
+    }
+
+    private static void decodeColumn(ByteBuffer in, Object[][] rows, int column, ColumnType type) {
+        byte[] nulls = new byte[(rows.length + 7) / 8];
+        in.get(nulls);
+
+        switch (type) {
+            case LONG, TIMESTAMP -> {
+                long previous = 0;
+                for (int row = 0; row < rows.length; row++) {
+                    if (!isNull(nulls, row)) {
+                        previous += unzigzag(readVarLong(in));
+                        rows[row][column] = previous;
+                    }
+                }
+            }
+            case INT -> {
+                for (int row = 0; row < rows.length; row++) {
+                    if (!isNull(nulls, row)) {
+                        rows[row][column] = (int) unzigzag(readVarLong(in));
+                    }
+                }
+            }
+            case DOUBLE -> {
+                for (int row = 0; row < rows.length; row++) {
+                    if (!isNull(nulls, row)) {
+                        rows[row][column] = in.getDouble();
+                    }
+                }
+            }
+            case STRING -> {
+                String[] dictionary = new String[(int) readVarLong(in)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] utf8 = new byte[(int) readVarLong(in)];
+                    in.get(utf8);
+                    dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+                }
+                for (int row = 0; row < rows.length; row++) {
+                    if (!isNull(nulls, row)) {
+                        rows[row][column] = dictionary[(int) readVarLong(in)];
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isNull(byte[] nulls, int row) {
+        return (nulls[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
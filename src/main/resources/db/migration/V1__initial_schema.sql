@@ -0,0 +1,20 @@
+-- Schema previously created by hibernate.ddl-auto: update.
+-- Existing databases are baselined at this version and skip it.
+create table if not exists app_user (
+    id bigint generated by default as identity primary key,
+    full_name varchar(255),
+    username varchar(255) unique,
+    password varchar(255),
+    role varchar(255)
+);
+
+create table if not exists expense (
+    id bigint generated by default as identity primary key,
+    expense_type integer not null,
+    date varchar(255),
+    amount float(53) not null,
+    category varchar(255),
+    account varchar(255),
+    note varchar(255),
+    user_id bigint references app_user (id)
+);
@@ -0,0 +1,18 @@
+alter table app_user add column if not exists change_horizon bigint;
+
+create table if not exists expense_change (
+    id bigint generated by default as identity primary key,
+    user_id bigint,
+    expense_id bigint,
+    operation varchar(255),
+    changed_at timestamp(6) with time zone,
+    expense_type integer,
+    date varchar(255),
+    amount float(53),
+    category varchar(255),
+    account varchar(255),
+    note varchar(255)
+);
+
+create index if not exists idx_expense_change_user_cursor on expense_change (user_id, id);
+create index if not exists idx_expense_change_expense on expense_change (expense_id);
@@ -0,0 +1,12 @@
+create table if not exists expense_archive (
+    id bigint primary key,
+    user_id bigint,
+    expense_type integer not null,
+    date varchar(255),
+    amount float(53) not null,
+    category varchar(255),
+    account varchar(255),
+    note varchar(255)
+);
+
+create index if not exists idx_expense_archive_user_date on expense_archive (user_id, date);
@@ -0,0 +1,2 @@
+-- Every expense query filters by user and most sort by date
+create index if not exists idx_expense_user_date on expense (user_id, date);
@@ -0,0 +1,7 @@
+-- Username -> shard directory, only read on shard 0
+create table if not exists user_shard (
+    username varchar(255) primary key,
+    shard integer not null
+);
+
+create index if not exists idx_user_shard_shard on user_shard (shard);
@@ -0,0 +1,2 @@
+-- Set while a user's rows are copied to another shard, their writes are refused until it is cleared
+alter table user_shard add column if not exists moving boolean default false not null;
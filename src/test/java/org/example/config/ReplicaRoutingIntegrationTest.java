@@ -0,0 +1,87 @@
+package org.example.config;
+
+import org.example.dto.AppUserDTO;
+import org.example.dto.AuthResponseDTO;
+import org.example.dto.ExpenseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Primary and replica are separate in-memory databases with nothing replicating between them,
+// so whether a read saw a row written through the API tells which of the two served it.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "datasource.routing.stickiness=1s",
+        "rate-limit.enabled=false"
+})
+@ActiveProfiles({"h2", "routing-h2"})
+class ReplicaRoutingIntegrationTest {
+    private static final String DATE = "2026-10-19";
+    private static final long STICKINESS_MILLIS = 1000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void authenticatesUserMissingOnReplica() {
+        String token = signup();
+
+        // The user only exists on the primary, the categories themselves are read from the replica
+        ResponseEntity<String> response = get("/expenses/categories", token, String.class);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void readsOwnWritesFromPrimaryUntilStickinessExpires() throws InterruptedException {
+        String token = signup();
+        ResponseEntity<ExpenseDTO> created = restTemplate.exchange("/expenses", HttpMethod.POST,
+                new HttpEntity<>(Map.of("expenseType", 1, "date", DATE, "amount", 12.5, "category", "Food"),
+                        bearer(token)),
+                ExpenseDTO.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+
+        ExpenseDTO[] sticky = get("/expenses/day/" + DATE, token, ExpenseDTO[].class).getBody();
+        assertNotNull(sticky);
+        assertEquals(1, sticky.length);
+        assertEquals(created.getBody().id(), sticky[0].id());
+
+        Thread.sleep(STICKINESS_MILLIS + 500);
+
+        ExpenseDTO[] replica = get("/expenses/day/" + DATE, token, ExpenseDTO[].class).getBody();
+        assertNotNull(replica);
+        assertEquals(0, replica.length);
+    }
+
+    private String signup() {
+        AppUserDTO user = new AppUserDTO();
+        user.setFullName("Routing Test");
+        user.setUsername("routing-" + UUID.randomUUID());
+        user.setPassword("secret-password");
+        ResponseEntity<AuthResponseDTO> response = restTemplate.postForEntity("/signup", user, AuthResponseDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().getToken();
+    }
+
+    private <T> ResponseEntity<T> get(String path, String token, Class<T> type) {
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(bearer(token)), type);
+    }
+
+    private static HttpHeaders bearer(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return headers;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.controller;
+
+import org.example.dto.ExpenseDTO;
+import org.example.utils.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The reactive read endpoints must answer like the servlet ones, archived expenses included.
+// Rows are written with JDBC, the endpoints read them through R2DBC from the same H2 database.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"reactive", "h2"})
+class ReactiveExpenseControllerIntegrationTest {
+    // Far above the identity values handed out to hot rows in this database
+    private static final AtomicLong ARCHIVE_IDS = new AtomicLong(900_000_000_000L + System.nanoTime() % 1_000_000_000L);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+    private long hotId;
+    private long archivedId;
+
+    @BeforeEach
+    void setUp() {
+        String username = "reactive-" + UUID.randomUUID();
+        long userId = insertUser(username);
+        token = jwtUtil.generateToken(username);
+        hotId = insertHot(userId, "2026-10-19", "Food");
+        archivedId = insertArchived(userId, "2024-01-15", "Rent");
+    }
+
+    @Test
+    void listsHotAndArchivedNewestFirst() {
+        List<ExpenseDTO> expenses = get("/expenses")
+                .expectStatus().isOk()
+                .expectBodyList(ExpenseDTO.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(List.of(hotId, archivedId), expenses.stream().map(ExpenseDTO::id).toList());
+    }
+
+    @Test
+    void findsArchivedById() {
+        ExpenseDTO expense = get("/expenses/" + archivedId)
+                .expectStatus().isOk()
+                .expectBody(ExpenseDTO.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(new ExpenseDTO(archivedId, 1, "2024-01-15", 40.0, "Rent", "Bank", null), expense);
+    }
+
+    @Test
+    void unknownIdIsOkWithNullBody() {
+        get("/expenses/" + Long.MAX_VALUE)
+                .expectStatus().isOk()
+                .expectBody(ExpenseDTO.class).isEqualTo(null);
+    }
+
+    @Test
+    void hidesOtherUsersArchivedExpenses() {
+        long otherArchivedId = insertArchived(insertUser("reactive-" + UUID.randomUUID()), "2024-01-15", "Rent");
+
+        get("/expenses/" + otherArchivedId)
+                .expectStatus().isOk()
+                .expectBody(ExpenseDTO.class).isEqualTo(null);
+    }
+
+    @Test
+    void filtersArchivedByDayAndMonth() {
+        get("/expenses/day/2024-01-15")
+                .expectStatus().isOk()
+                .expectBodyList(ExpenseDTO.class).hasSize(1);
+        get("/expenses/category/rent/month?month=2024-01")
+                .expectStatus().isOk()
+                .expectBodyList(ExpenseDTO.class).hasSize(1);
+    }
+
+    @Test
+    void listsCategoriesOfHotAndArchived() {
+        List<String> categories = get("/expenses/categories")
+                .expectStatus().isOk()
+                .expectBodyList(String.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(List.of("Food", "Rent"), categories);
+    }
+
+    private WebTestClient.ResponseSpec get(String uri) {
+        return webTestClient.get().uri(uri)
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange();
+    }
+
+    private long insertUser(String username) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into app_user (full_name, username, password, role) values (?, ?, ?, 'USER')",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, "Reactive Test");
+            statement.setString(2, username);
+            statement.setString(3, "unused");
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private long insertHot(long userId, String date, String category) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into expense (expense_type, date, amount, category, account, user_id) values (1, ?, 12.5, ?, 'Cash', ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, date);
+            statement.setString(2, category);
+            statement.setLong(3, userId);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private long insertArchived(long userId, String date, String category) {
+        long id = ARCHIVE_IDS.incrementAndGet();
+        jdbcTemplate.update("insert into expense_archive (id, user_id, expense_type, date, amount, category, account) " +
+                "values (?, ?, 1, ?, 40.0, ?, 'Bank')", id, userId, date, category);
+        return id;
+    }
+}
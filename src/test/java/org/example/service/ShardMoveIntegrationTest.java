@@ -0,0 +1,146 @@
+package org.example.service;
+
+import org.example.config.ShardDataSources;
+import org.example.config.ShardRouter;
+import org.example.dto.AppUserDTO;
+import org.example.dto.AuthResponseDTO;
+import org.example.dto.ExpenseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Moves a user while several clients keep adding expenses for them. Writes may be refused during
+// the move, but every write that was acknowledged must end up on the target shard and nothing may
+// be left behind on the source.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "rate-limit.enabled=false")
+@ActiveProfiles({"h2", "sharded-h2"})
+class ShardMoveIntegrationTest {
+    private static final int WRITERS = 4;
+    private static final int WRITES_BEFORE_MOVE = 40;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ShardService shardService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Test
+    void keepsEveryAcknowledgedWriteAcrossMove() throws Exception {
+        String username = "mover-" + UUID.randomUUID();
+        String token = signup(username);
+        int sourceShard = shardRouter.placementFor(username);
+        int targetShard = (sourceShard + 1) % shardRouter.shardCount();
+
+        Set<Long> acknowledged = ConcurrentHashMap.newKeySet();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writers.add(executor.submit(() -> {
+                    while (!stop.get()) {
+                        ResponseEntity<ExpenseDTO> response = addExpense(token);
+                        if (response.getStatusCode() == HttpStatus.CREATED) {
+                            acknowledged.add(response.getBody().id());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            while (acknowledged.size() < WRITES_BEFORE_MOVE) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(shardService.moveUser(username, targetShard));
+
+            // Writers keep going against the new placement for a moment
+            int movedAt = acknowledged.size();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (acknowledged.size() < movedAt + WRITES_BEFORE_MOVE && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            stop.set(true);
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+
+        JdbcTemplate source = new JdbcTemplate(shardDataSources.shards().get(sourceShard));
+        JdbcTemplate target = new JdbcTemplate(shardDataSources.shards().get(targetShard));
+        assertEquals(0, countUsers(source, username));
+        assertEquals(1, countUsers(target, username));
+
+        Long userId = target.queryForObject("select id from app_user where lower(username) = lower(?)",
+                Long.class, username);
+        assertEquals(0, countExpenses(source, userId));
+        Set<Long> stored = new HashSet<>(target.queryForList(
+                "select id from expense where user_id = ? union all select id from expense_archive where user_id = ?",
+                Long.class, userId, userId));
+        assertEquals(acknowledged, stored);
+
+        assertEquals(HttpStatus.CREATED, addExpense(token).getStatusCode());
+    }
+
+    private ResponseEntity<ExpenseDTO> addExpense(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange("/expenses", HttpMethod.POST,
+                new HttpEntity<>(Map.of("expenseType", 1, "date", "2026-10-19", "amount", 1.0, "category", "Move"),
+                        headers),
+                ExpenseDTO.class);
+    }
+
+    private String signup(String username) {
+        AppUserDTO user = new AppUserDTO();
+        user.setFullName("Shard Move Test");
+        user.setUsername(username);
+        user.setPassword("secret-password");
+        ResponseEntity<AuthResponseDTO> response = restTemplate.postForEntity("/signup", user, AuthResponseDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().getToken();
+    }
+
+    private static int countUsers(JdbcTemplate jdbcTemplate, String username) {
+        return jdbcTemplate.queryForObject("select count(*) from app_user where lower(username) = lower(?)",
+                Integer.class, username);
+    }
+
+    private static int countExpenses(JdbcTemplate jdbcTemplate, Long userId) {
+        return jdbcTemplate.queryForObject(
+                "select (select count(*) from expense where user_id = ?) + (select count(*) from expense_archive where user_id = ?)",
+                Integer.class, userId, userId);
+    }
+}